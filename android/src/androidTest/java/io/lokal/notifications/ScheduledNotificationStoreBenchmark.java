@@ -0,0 +1,86 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Cost of scheduling 10, 100 and 1000 reminders with ScheduledNotificationStore against the
+ * JSON array the module used to re-parse and rewrite on every insert. Results are logged
+ * under the ScheduledStoreBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScheduledNotificationStoreBenchmark {
+
+    private static final String TAG = "ScheduledStoreBenchmark";
+    private static final String LEGACY_PREFS_NAME = "LocalNotificationsBenchmark";
+    private static final String LEGACY_KEY = "scheduled_notifications";
+    private static final int[] SIZES = {10, 100, 1000};
+
+    private Context context;
+    private ScheduledNotificationStore store;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        store = ScheduledNotificationStore.getInstance(context);
+        store.clear();
+    }
+
+    @After
+    public void tearDown() {
+        store.clear();
+        legacyPrefs().edit().clear().commit();
+    }
+
+    @Test
+    public void scheduleCost() throws Exception {
+        for (int size : SIZES) {
+            store.clear();
+            long start = System.nanoTime();
+            for (int id = 0; id < size; id++) {
+                store.put(new ScheduledNotificationStore.ScheduledNotification(id, "Title " + id, "Body " + id,
+                    System.currentTimeMillis() + id * 60000L, "{\"uri\":\"lokal://post/" + id + "\"}"));
+            }
+            long storeNanos = System.nanoTime() - start;
+
+            legacyPrefs().edit().clear().commit();
+            start = System.nanoTime();
+            for (int id = 0; id < size; id++) {
+                legacyStore(id, "Title " + id, "Body " + id, System.currentTimeMillis() + id * 60000L);
+            }
+            long legacyNanos = System.nanoTime() - start;
+
+            android.util.Log.i(TAG, size + " entries: store " + storeNanos / 1000000 + "ms ("
+                + storeNanos / size / 1000 + "us each), legacy JSON " + legacyNanos / 1000000 + "ms ("
+                + legacyNanos / size / 1000 + "us each)");
+        }
+    }
+
+    // The former LocalNotificationManagerModule.storeScheduledNotification
+    private void legacyStore(int id, String title, String body, long scheduledTime) throws Exception {
+        SharedPreferences prefs = legacyPrefs();
+        JSONArray jsonArray = new JSONArray(prefs.getString(LEGACY_KEY, "[]"));
+        JSONObject newNotif = new JSONObject();
+        newNotif.put("id", id);
+        newNotif.put("title", title);
+        newNotif.put("body", body);
+        newNotif.put("scheduledTime", scheduledTime);
+        JSONObject dataObj = new JSONObject();
+        dataObj.put("uri", "lokal://post/" + id);
+        newNotif.put("data", dataObj);
+        jsonArray.put(newNotif);
+        prefs.edit().putString(LEGACY_KEY, jsonArray.toString()).apply();
+    }
+
+    private SharedPreferences legacyPrefs() {
+        return context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
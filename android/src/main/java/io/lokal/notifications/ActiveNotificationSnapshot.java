@@ -0,0 +1,193 @@
+package io.lokal.notifications;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Shared, short lived view of the app's active notifications. The system call and the
+ * columns every caller needs (id, notification_time_extra, refresh id, when) are read once
+ * and reused for a few hundred milliseconds, so the limiter, the refresher and the grouping
+ * code running back to back don't each re-query the notification service. Other extras are
+ * only read for the keys a caller asks for.
+ */
+public class ActiveNotificationSnapshot {
+
+    private static final String TAG = "ActiveNotificationSnapshot";
+
+    // How long a snapshot is reused before the notification service is queried again
+    private static final long MAX_AGE_MS = 300;
+
+    private static ActiveNotificationSnapshot cached;
+
+    public final int[] ids;
+    public final long[] times;
+    public final int[] refreshIds;
+    public final long[] when;
+
+    private final StatusBarNotification[] notifications;
+    private final long createdAt;
+
+    private ActiveNotificationSnapshot(StatusBarNotification[] notifications) {
+        this.notifications = notifications;
+        this.createdAt = SystemClock.elapsedRealtime();
+
+        int count = notifications.length;
+        ids = new int[count];
+        times = new long[count];
+        refreshIds = new int[count];
+        when = new long[count];
+        for (int i = 0; i < count; i++) {
+            Notification notification = notifications[i].getNotification();
+            Bundle extras = notification.extras;
+            ids[i] = notifications[i].getId();
+            times[i] = extras != null ? extras.getLong(NotificationLimiter.NOTIFICATION_TIME_EXTRA, 0) : 0;
+            refreshIds[i] = extras != null ? extras.getInt(NotificationLimiter.NOTIFICATION_REFRESH_ID_EXTRA, 0) : 0;
+            when[i] = notification.when;
+        }
+    }
+
+    /**
+     * Current snapshot, reusing the previous one if it is recent enough. Empty below API 23.
+     */
+    public static synchronized ActiveNotificationSnapshot get(Context context) {
+        if (cached != null && SystemClock.elapsedRealtime() - cached.createdAt <= MAX_AGE_MS) {
+            return cached;
+        }
+
+        StatusBarNotification[] notifications = new StatusBarNotification[0];
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            NotificationManager notificationManager =
+                (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            try {
+                notifications = notificationManager.getActiveNotifications();
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Failed to read active notifications", e);
+            }
+        }
+        cached = new ActiveNotificationSnapshot(notifications);
+        return cached;
+    }
+
+    /**
+     * Drop the cached snapshot, called whenever the app posts or cancels a notification
+     */
+    public static synchronized void invalidate() {
+        cached = null;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(int id) {
+        for (int activeId : ids) {
+            if (activeId == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Notification getNotification(int index) {
+        return notifications[index].getNotification();
+    }
+
+    /**
+     * Columnar form for JS: parallel id, time, refresh id and when arrays, plus one array
+     * per projected extra key holding the value of each notification (null when absent).
+     */
+    public WritableMap toColumns(String[] projection) {
+        WritableArray idColumn = Arguments.createArray();
+        WritableArray timeColumn = Arguments.createArray();
+        WritableArray refreshIdColumn = Arguments.createArray();
+        WritableArray whenColumn = Arguments.createArray();
+        for (int i = 0; i < ids.length; i++) {
+            idColumn.pushInt(ids[i]);
+            timeColumn.pushDouble(times[i]);
+            refreshIdColumn.pushInt(refreshIds[i]);
+            whenColumn.pushDouble(when[i]);
+        }
+
+        WritableMap extraColumns = Arguments.createMap();
+        if (projection != null) {
+            for (String key : projection) {
+                WritableArray column = Arguments.createArray();
+                for (StatusBarNotification statusBarNotification : notifications) {
+                    Bundle extras = statusBarNotification.getNotification().extras;
+                    pushValue(column, extras != null ? extras.get(key) : null);
+                }
+                extraColumns.putArray(key, column);
+            }
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putArray("ids", idColumn);
+        result.putArray("times", timeColumn);
+        result.putArray("refreshIds", refreshIdColumn);
+        result.putArray("when", whenColumn);
+        result.putMap("extras", extraColumns);
+        return result;
+    }
+
+    /**
+     * Array of {id, packageName, notification: {extras, when}} maps returned by the
+     * getActiveNotifications methods of the JS modules. All String, number and boolean
+     * extras are included, as JS re-posts notifications from them.
+     */
+    public WritableArray toNotificationArray() {
+        WritableArray result = Arguments.createArray();
+        for (StatusBarNotification statusBarNotification : notifications) {
+            WritableMap extras = Arguments.createMap();
+            Bundle notificationExtras = statusBarNotification.getNotification().extras;
+            if (notificationExtras != null) {
+                for (String key : notificationExtras.keySet()) {
+                    Object value = notificationExtras.get(key);
+                    if (value instanceof String) {
+                        extras.putString(key, (String) value);
+                    } else if (value instanceof Integer) {
+                        extras.putInt(key, (Integer) value);
+                    } else if (value instanceof Long) {
+                        extras.putDouble(key, ((Long) value).doubleValue());
+                    } else if (value instanceof Boolean) {
+                        extras.putBoolean(key, (Boolean) value);
+                    }
+                }
+            }
+
+            WritableMap notificationData = Arguments.createMap();
+            notificationData.putMap("extras", extras);
+            notificationData.putDouble("when", statusBarNotification.getNotification().when);
+
+            WritableMap notifMap = Arguments.createMap();
+            notifMap.putInt("id", statusBarNotification.getId());
+            notifMap.putString("packageName", statusBarNotification.getPackageName());
+            notifMap.putMap("notification", notificationData);
+            result.pushMap(notifMap);
+        }
+        return result;
+    }
+
+    private static void pushValue(WritableArray column, Object value) {
+        if (value instanceof String) {
+            column.pushString((String) value);
+        } else if (value instanceof Integer) {
+            column.pushInt((Integer) value);
+        } else if (value instanceof Number) {
+            column.pushDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            column.pushBoolean((Boolean) value);
+        } else if (value instanceof CharSequence) {
+            column.pushString(value.toString());
+        } else {
+            column.pushNull();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package io.lokal.notifications;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.text.TextUtils;
+import androidx.core.app.NotificationCompat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Group summaries rendered as InboxStyle from the most recent children of each group.
+ * Each group keeps a small ring buffer of child titles, so a new child costs one slot write.
+ *
+ * The first child of a group posts its summary straight away. Children arriving while the
+ * summary is showing are merged into one deferred post, and a post whose visible content
+ * matches the last one is skipped, so a burst of children updates the summary only a few times.
+ * Only children the group registry still holds are listed and counted, the registry learns
+ * of cancelled, dismissed and opened children from their events.
+ */
+public class GroupSummaryEngine {
+
+    private static final String TAG = "GroupSummaryEngine";
+
+    // InboxStyle shows at most this many lines before collapsing
+    static final int MAX_LINES = 5;
+    static final long UPDATE_DELAY_MS = 500;
+
+    // Summary clicks use their own action so their PendingIntent never matches a child's
+    static final String ACTION_SUMMARY_CLICK = "io.lokal.notifications.GROUP_SUMMARY_CLICK";
+
+    private static GroupSummaryEngine instance;
+
+    private final Handler handler;
+    private final Map<Integer, GroupState> groups = new HashMap<>();
+
+    private static class GroupState {
+        final int[] childIds = new int[MAX_LINES];
+        final String[] lines = new String[MAX_LINES];
+        // Slot the next child is written to, and how many slots are filled
+        int head;
+        int count;
+
+        String channelId;
+        String categoryName;
+        String lastPostedContent;
+        Runnable pendingPost;
+
+        void put(int childId, String line) {
+            for (int i = 0; i < count; i++) {
+                if (childIds[i] == childId) {
+                    // An updated child keeps its place
+                    lines[i] = line;
+                    return;
+                }
+            }
+            childIds[head] = childId;
+            lines[head] = line;
+            head = (head + 1) % MAX_LINES;
+            if (count < MAX_LINES) {
+                count++;
+            }
+        }
+
+        /**
+         * Drop the children the filter rejects, keeping the order of the rest
+         */
+        void retain(ChildFilter filter) {
+            int liveCount = 0;
+            int[] liveIds = new int[count];
+            String[] liveLines = new String[count];
+            // Oldest first, so re-adding them restores the order
+            for (int i = count - 1; i >= 0; i--) {
+                int slot = (head - 1 - i + MAX_LINES) % MAX_LINES;
+                if (filter.keep(childIds[slot])) {
+                    liveIds[liveCount] = childIds[slot];
+                    liveLines[liveCount] = lines[slot];
+                    liveCount++;
+                }
+            }
+            if (liveCount == count) {
+                return;
+            }
+            head = 0;
+            count = 0;
+            for (int i = 0; i < liveCount; i++) {
+                put(liveIds[i], liveLines[i]);
+            }
+        }
+
+        void clear() {
+            head = 0;
+            count = 0;
+            lastPostedContent = null;
+        }
+
+        // Newest line first
+        String line(int index) {
+            return lines[(head - 1 - index + MAX_LINES) % MAX_LINES];
+        }
+    }
+
+    private interface ChildFilter {
+        boolean keep(int childId);
+    }
+
+    /**
+     * Children still showing or waiting in the post queue. Reads the active notifications, so
+     * it is only used when a dismissed summary is re-created and the registry has no members.
+     */
+    private static class Liveness implements ChildFilter {
+        private final ActiveNotificationSnapshot snapshot;
+
+        Liveness(Context context) {
+            // Active notifications can't be listed below M, every child counts there
+            snapshot = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? ActiveNotificationSnapshot.get(context) : null;
+        }
+
+        @Override
+        public boolean keep(int childId) {
+            return snapshot == null || snapshot.contains(childId) || NotificationPostQueue.getInstance().isPending(childId);
+        }
+    }
+
+    public static synchronized GroupSummaryEngine getInstance() {
+        if (instance == null) {
+            instance = new GroupSummaryEngine();
+        }
+        return instance;
+    }
+
+    private GroupSummaryEngine() {
+        HandlerThread thread = new HandlerThread(TAG);
+        thread.start();
+        this.handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Add a posted child to its group and bring the group summary up to date,
+     * now when no summary is showing, otherwise with the next deferred post
+     */
+    public synchronized void onChildPosted(Context context, int groupId, int childId, String title,
+                                           String channelId, String categoryName) {
+        final Context appContext = context.getApplicationContext();
+        NotificationGroupRegistry registry = NotificationGroupRegistry.getInstance(appContext);
+        boolean summaryActive = registry.isSummaryActive(groupId);
+
+        GroupState state = groups.get(groupId);
+        if (state == null) {
+            state = new GroupState();
+            groups.put(groupId, state);
+        } else if (!summaryActive) {
+            // The summary was dismissed or cancelled, the group starts over
+            cancelPending(state);
+            state.clear();
+        }
+        registry.addMember(groupId, childId);
+
+        state.put(childId, HtmlText.strip(title));
+        state.channelId = channelId;
+        state.categoryName = categoryName;
+
+        if (!summaryActive) {
+            post(appContext, groupId, state);
+            return;
+        }
+        if (state.pendingPost != null) {
+            // The deferred post will pick up the new line
+            return;
+        }
+
+        final GroupState deferredState = state;
+        state.pendingPost = () -> {
+            synchronized (GroupSummaryEngine.this) {
+                deferredState.pendingPost = null;
+                if (groups.get(groupId) != deferredState) {
+                    return;
+                }
+                NotificationGroupRegistry deferredRegistry = NotificationGroupRegistry.getInstance(appContext);
+                if (!deferredRegistry.isSummaryActive(groupId)) {
+                    // The summary went away while the post was waiting, start the group over
+                    // with the children that are still showing
+                    deferredState.retain(new Liveness(appContext));
+                    deferredState.lastPostedContent = null;
+                    if (deferredState.count == 0) {
+                        return;
+                    }
+                    deferredRegistry.markSummaryPosted(groupId, groupId);
+                    for (int i = 0; i < deferredState.count; i++) {
+                        deferredRegistry.addMember(groupId, deferredState.childIds[i]);
+                    }
+                }
+                post(appContext, groupId, deferredState);
+            }
+        };
+        handler.postDelayed(state.pendingPost, UPDATE_DELAY_MS);
+    }
+
+    private void cancelPending(GroupState state) {
+        if (state.pendingPost != null) {
+            handler.removeCallbacks(state.pendingPost);
+            state.pendingPost = null;
+        }
+    }
+
+    private void post(Context context, int groupId, GroupState state) {
+        final NotificationGroupRegistry registry = NotificationGroupRegistry.getInstance(context);
+        state.retain(childId -> registry.isMember(groupId, childId));
+        if (state.count == 0) {
+            return;
+        }
+        String newest = state.line(0);
+        String title = TextUtils.isEmpty(state.categoryName) ? newest : state.categoryName;
+        int hidden = registry.getMemberCount(groupId) - state.count;
+        String summaryText = hidden > 0 ? "+" + hidden + " more" : null;
+
+        // Everything the user can see, compared with the last post to skip identical updates
+        StringBuilder content = new StringBuilder(title).append('\n').append(summaryText);
+        for (int i = 0; i < state.count; i++) {
+            content.append('\n').append(state.line(i));
+        }
+        String visibleContent = content.toString();
+        if (visibleContent.equals(state.lastPostedContent)) {
+            return;
+        }
+
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle()
+            .setBigContentTitle(title);
+        for (int i = 0; i < state.count; i++) {
+            style.addLine(state.line(i));
+        }
+        if (summaryText != null) {
+            style.setSummaryText(summaryText);
+        }
+
+        Intent intent = new Intent(context, NotificationClickReceiver.class);
+        intent.setAction(ACTION_SUMMARY_CLICK);
+        intent.putExtra("notification_id_extra", groupId);
+        PendingIntent contentIntent = PendingIntent.getBroadcast(context, groupId, intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0));
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, state.channelId)
+            .setSmallIcon(NotificationUtil.getNotificationIcon(context))
+            .setColor(NotificationUtil.getNotificationColor(context))
+            .setContentTitle(title)
+            .setContentText(newest)
+            .setStyle(style)
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setGroup(String.valueOf(groupId))
+            .setGroupSummary(true)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+            .setOnlyAlertOnce(true)
+            .setAutoCancel(true)
+            .setContentIntent(contentIntent)
+            .setDeleteIntent(NotificationDismissReceiver.createSummaryDeleteIntent(context, groupId));
+
+        registry.markSummaryPosted(groupId, groupId);
+        NotificationPostQueue.getInstance().enqueue(context, groupId, builder.build());
+        state.lastPostedContent = visibleContent;
+    }
+}
@@ -0,0 +1,144 @@
+package io.lokal.notifications;
+
+/**
+ * Strips HTML tags from notification text and decodes common entities in a single pass.
+ * Replaces the per-call text.replaceAll("<[^>]*>", "") which compiled a regex every time.
+ */
+public final class HtmlText {
+
+    // Longest entity name handled, "&nbsp;" and "&quot;" included
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private static final ThreadLocal<StringBuilder> BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private HtmlText() {
+    }
+
+    /**
+     * Text without tags and with entities decoded, trimmed. Null becomes "".
+     */
+    public static String strip(String text) {
+        if (text == null) {
+            return "";
+        }
+        // Nothing to strip or decode, skip the copy
+        if (text.indexOf('<') < 0 && text.indexOf('&') < 0) {
+            return text.trim();
+        }
+
+        StringBuilder out = BUILDER.get();
+        out.setLength(0);
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                int end = text.indexOf('>', i + 1);
+                if (end < 0) {
+                    // Unclosed tag, the regex left it in place too
+                    out.append(text, i, length);
+                    break;
+                }
+                i = end + 1;
+            } else if (c == '&') {
+                i = appendEntity(text, i, out);
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return trim(out);
+    }
+
+    /**
+     * Append the entity starting at start, or the bare '&' when it isn't one we decode.
+     * Returns the index after what was consumed.
+     */
+    private static int appendEntity(String text, int start, StringBuilder out) {
+        int end = text.indexOf(';', start + 1);
+        if (end < 0 || end - start > MAX_ENTITY_LENGTH) {
+            out.append('&');
+            return start + 1;
+        }
+
+        int codePoint = -1;
+        if (text.charAt(start + 1) == '#') {
+            codePoint = parseNumericEntity(text, start + 2, end);
+        } else {
+            switch (text.substring(start + 1, end)) {
+                case "amp":
+                    codePoint = '&';
+                    break;
+                case "lt":
+                    codePoint = '<';
+                    break;
+                case "gt":
+                    codePoint = '>';
+                    break;
+                case "quot":
+                    codePoint = '"';
+                    break;
+                case "apos":
+                    codePoint = '\'';
+                    break;
+                case "nbsp":
+                    codePoint = ' ';
+                    break;
+            }
+        }
+
+        if (codePoint < 0) {
+            out.append('&');
+            return start + 1;
+        }
+        out.appendCodePoint(codePoint);
+        return end + 1;
+    }
+
+    /**
+     * Code point of "&#NNN;" or "&#xHH;" between from and to, or -1 if malformed or not a character
+     */
+    private static int parseNumericEntity(String text, int from, int to) {
+        int radix = 10;
+        if (from < to && (text.charAt(from) == 'x' || text.charAt(from) == 'X')) {
+            radix = 16;
+            from++;
+        }
+        if (from >= to) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = Character.digit(text.charAt(i), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * radix + digit;
+            if (value > Character.MAX_CODE_POINT) {
+                return -1;
+            }
+        }
+        // NUL and lone surrogates are not characters, leave the entity as written
+        if (value == 0 || (value >= Character.MIN_SURROGATE && value <= Character.MAX_SURROGATE)) {
+            return -1;
+        }
+        return value;
+    }
+
+    private static String trim(StringBuilder out) {
+        int start = 0;
+        int end = out.length();
+        while (start < end && out.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && out.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return out.substring(start, end);
+    }
+}
@@ -0,0 +1,140 @@
+package io.lokal.notifications;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of primitive ints, no boxing. Not thread safe.
+ */
+final class IntSet {
+
+    // Marks an empty slot, the value itself is tracked separately
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] slots;
+    private int size;
+    private boolean hasEmptyValue;
+
+    IntSet() {
+        this(8);
+    }
+
+    IntSet(int expectedSize) {
+        int capacity = 8;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    int size() {
+        return size + (hasEmptyValue ? 1 : 0);
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    boolean contains(int value) {
+        if (value == EMPTY) {
+            return hasEmptyValue;
+        }
+        return slots[indexOf(value)] == value;
+    }
+
+    /**
+     * @return true if the value was not in the set yet
+     */
+    boolean add(int value) {
+        if (value == EMPTY) {
+            boolean added = !hasEmptyValue;
+            hasEmptyValue = true;
+            return added;
+        }
+        int index = indexOf(value);
+        if (slots[index] == value) {
+            return false;
+        }
+        slots[index] = value;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    boolean remove(int value) {
+        if (value == EMPTY) {
+            boolean removed = hasEmptyValue;
+            hasEmptyValue = false;
+            return removed;
+        }
+        int index = indexOf(value);
+        if (slots[index] != value) {
+            return false;
+        }
+        slots[index] = EMPTY;
+        size--;
+        // Shift the rest of the probe run back so lookups don't stop at the hole
+        int mask = slots.length - 1;
+        int next = (index + 1) & mask;
+        while (slots[next] != EMPTY) {
+            int moved = slots[next];
+            slots[next] = EMPTY;
+            slots[indexOf(moved)] = moved;
+            next = (next + 1) & mask;
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+        hasEmptyValue = false;
+    }
+
+    int[] toArray() {
+        int[] values = new int[size()];
+        int i = 0;
+        for (int slot : slots) {
+            if (slot != EMPTY) {
+                values[i++] = slot;
+            }
+        }
+        if (hasEmptyValue) {
+            values[i] = EMPTY;
+        }
+        return values;
+    }
+
+    /**
+     * Slot holding the value, or the empty slot where it would go
+     */
+    private int indexOf(int value) {
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != EMPTY && slots[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        int[] previous = slots;
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        for (int value : previous) {
+            if (value != EMPTY) {
+                slots[indexOf(value)] = value;
+            }
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,80 @@
+package io.lokal.notifications;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-arms scheduled local notifications after a reboot or an app update, both of which
+ * clear every alarm the app had registered. Works from the persisted store on a worker
+ * thread so a long schedule doesn't block the broadcast.
+ */
+public class LocalNotificationBootReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "LocalNotificationBoot";
+
+    // Notifications missed by less than this are still shown, older ones are dropped
+    static final long GRACE_WINDOW_MS = 15 * 60 * 1000L;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action) && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            return;
+        }
+
+        final Context appContext = context.getApplicationContext();
+        final PendingResult pendingResult = goAsync();
+        new Thread(() -> {
+            try {
+                rescheduleAll(appContext);
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Failed to reschedule local notifications", e);
+            } finally {
+                pendingResult.finish();
+            }
+        }, TAG).start();
+    }
+
+    private static void rescheduleAll(Context context) {
+        ScheduledNotificationStore store = ScheduledNotificationStore.getInstance(context);
+        boolean coalescing = LocalNotificationScheduler.isCoalescing(context);
+        long now = System.currentTimeMillis();
+        List<Integer> finishedIds = new ArrayList<>();
+        int rescheduled = 0;
+        int fired = 0;
+
+        for (ScheduledNotificationStore.ScheduledNotification notification : store.getAll()) {
+            try {
+                if (notification.scheduledTime > now) {
+                    // A single wakeup alarm is armed below when coalescing
+                    if (!coalescing) {
+                        LocalNotificationScheduler.schedule(context, notification);
+                    }
+                    rescheduled++;
+                } else {
+                    if (notification.scheduledTime >= now - GRACE_WINDOW_MS) {
+                        // Posted synchronously, the entry is only deleted once it was shown
+                        if (!LocalNotificationReceiver.showNotification(context,
+                                LocalNotificationScheduler.createAlarmIntent(context, notification))) {
+                            continue;
+                        }
+                        fired++;
+                    }
+                    finishedIds.add(notification.id);
+                }
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Failed to reschedule notification " + notification.id, e);
+            }
+        }
+
+        store.removeAll(finishedIds);
+        if (coalescing) {
+            LocalNotificationScheduler.rearm(context);
+        }
+        android.util.Log.d(TAG, "Rescheduled " + rescheduled + ", fired " + fired
+            + ", dropped " + (finishedIds.size() - fired) + " local notifications");
+    }
+}
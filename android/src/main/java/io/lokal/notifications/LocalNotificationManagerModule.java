@@ -3,14 +3,8 @@ package io.lokal.notifications;
 import com.facebook.react.bridge.*;
 import android.app.AlarmManager;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
-import android.content.SharedPreferences;
-import android.os.Build;
-import android.os.Bundle;
 import androidx.core.app.NotificationCompat;
-import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.*;
 
@@ -19,10 +13,12 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
     private NotificationManager notificationManager;
     private AlarmManager alarmManager;
     private ReactApplicationContext reactContext;
+    private ScheduledNotificationStore scheduledStore;
 
     public LocalNotificationManagerModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        this.scheduledStore = ScheduledNotificationStore.getInstance(reactContext);
         this.notificationManager = (NotificationManager) reactContext.getSystemService(Context.NOTIFICATION_SERVICE);
         this.alarmManager = (AlarmManager) reactContext.getSystemService(Context.ALARM_SERVICE);
     }
@@ -40,53 +36,15 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
             String body = config.getString("body");
             double scheduledTime = config.getDouble("scheduledTime");
             ReadableMap data = config.hasKey("data") ? config.getMap("data") : null;
+            // Optional delay the reminder may be delivered late by, allowing an inexact alarm
+            long toleranceMs = config.hasKey("toleranceMs") ? (long) config.getDouble("toleranceMs") : 0;
 
-            // Store notification data for later use
-            storeScheduledNotification(id, title, body, (long) scheduledTime, data);
+            // Store notification data so the alarm can be re-armed after a reboot
+            ScheduledNotificationStore.ScheduledNotification notification =
+                createScheduledNotification(id, title, body, (long) scheduledTime, data, Math.max(0, toleranceMs));
+            storeScheduledNotification(notification);
 
-            // Create intent for the scheduled notification
-            Intent intent = new Intent(reactContext, LocalNotificationReceiver.class);
-            intent.putExtra("notification_id", id);
-            intent.putExtra("title", title);
-            intent.putExtra("body", body);
-            intent.putExtra("scheduled_time", (long) scheduledTime);
-            
-            if (data != null) {
-                // Convert ReadableMap to Bundle for intent extras
-                Bundle dataBundle = new Bundle();
-                ReadableMapKeySetIterator iterator = data.keySetIterator();
-                while (iterator.hasNextKey()) {
-                    String key = iterator.nextKey();
-                    ReadableType type = data.getType(key);
-                    
-                    switch (type) {
-                        case String:
-                            dataBundle.putString(key, data.getString(key));
-                            break;
-                        case Number:
-                            dataBundle.putDouble(key, data.getDouble(key));
-                            break;
-                        case Boolean:
-                            dataBundle.putBoolean(key, data.getBoolean(key));
-                            break;
-                    }
-                }
-                intent.putExtra("data", dataBundle);
-            }
-
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                reactContext, 
-                id, 
-                intent, 
-                PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
-            );
-
-            // Schedule the notification
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, (long) scheduledTime, pendingIntent);
-            } else {
-                alarmManager.setExact(AlarmManager.RTC_WAKEUP, (long) scheduledTime, pendingIntent);
-            }
+            LocalNotificationScheduler.schedule(reactContext, notification);
 
             promise.resolve(true);
         } catch (Exception e) {
@@ -97,22 +55,14 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void cancelNotification(int id, Promise promise) {
         try {
-            // Cancel the scheduled alarm
-            Intent intent = new Intent(reactContext, LocalNotificationReceiver.class);
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                reactContext, 
-                id, 
-                intent, 
-                PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
-            );
+            // Remove from stored notifications
+            removeScheduledNotification(id);
             
-            alarmManager.cancel(pendingIntent);
+            // Cancel the scheduled alarm
+            LocalNotificationScheduler.cancel(reactContext, id);
             
             // Cancel any existing notification
-            notificationManager.cancel(id);
-            
-            // Remove from stored notifications
-            removeScheduledNotification(id);
+            NotificationPostQueue.getInstance().cancel(reactContext, id);
             
             promise.resolve(true);
         } catch (Exception e) {
@@ -126,17 +76,9 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
             // Get all scheduled notifications and cancel them
             List<Integer> scheduledIds = getScheduledNotificationIds();
             
+            LocalNotificationScheduler.cancelAll(reactContext, scheduledIds);
             for (int id : scheduledIds) {
-                Intent intent = new Intent(reactContext, LocalNotificationReceiver.class);
-                PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                    reactContext, 
-                    id, 
-                    intent, 
-                    PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
-                );
-                
-                alarmManager.cancel(pendingIntent);
-                notificationManager.cancel(id);
+                NotificationPostQueue.getInstance().cancel(reactContext, id);
             }
             
             // Clear all stored notifications
@@ -151,24 +93,19 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void getScheduledNotifications(Promise promise) {
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences("LocalNotifications", Context.MODE_PRIVATE);
-            String notificationsJson = prefs.getString("scheduled_notifications", "[]");
-            
-            JSONArray jsonArray = new JSONArray(notificationsJson);
             WritableArray result = Arguments.createArray();
             
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject notifObj = jsonArray.getJSONObject(i);
+            for (ScheduledNotificationStore.ScheduledNotification notification : scheduledStore.getAll()) {
                 WritableMap notifMap = Arguments.createMap();
                 
-                notifMap.putInt("id", notifObj.optInt("id", 0));
-                notifMap.putString("title", notifObj.optString("title", ""));
-                notifMap.putString("body", notifObj.optString("body", ""));
-                notifMap.putDouble("scheduledTime", notifObj.optLong("scheduledTime", 0));
+                notifMap.putInt("id", notification.id);
+                notifMap.putString("title", notification.title != null ? notification.title : "");
+                notifMap.putString("body", notification.body != null ? notification.body : "");
+                notifMap.putDouble("scheduledTime", notification.scheduledTime);
                 
                 // Add data if present
-                if (notifObj.has("data")) {
-                    JSONObject dataObj = notifObj.getJSONObject("data");
+                if (notification.data != null) {
+                    JSONObject dataObj = new JSONObject(notification.data);
                     WritableMap dataMap = Arguments.createMap();
                     
                     Iterator<String> keys = dataObj.keys();
@@ -199,6 +136,20 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Switch to a single coalesced wakeup alarm that posts everything due within windowMs,
+     * instead of one exact alarm per notification
+     */
+    @ReactMethod
+    public void setAlarmCoalescing(boolean enabled, double windowMs, Promise promise) {
+        try {
+            LocalNotificationScheduler.setCoalescing(reactContext, enabled, (long) windowMs);
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("COALESCING_ERROR", e.getMessage());
+        }
+    }
+
     @ReactMethod
     public void showNotificationNow(ReadableMap config, Promise promise) {
         try {
@@ -207,14 +158,15 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
             String body = config.getString("body");
             
             // Create and show notification immediately
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext, "LocalNotifications")
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext,
+                    NotificationChannelRegistry.channelId(reactContext, NotificationChannelRegistry.LOCAL_NOTIFICATIONS))
                 .setContentTitle(title)
                 .setContentText(body)
                 .setSmallIcon(getNotificationIcon())
                 .setPriority(NotificationCompat.PRIORITY_DEFAULT)
                 .setAutoCancel(true);
 
-            notificationManager.notify(id, builder.build());
+            NotificationPostQueue.getInstance().enqueue(reactContext, id, builder.build());
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("SHOW_NOW_ERROR", e.getMessage());
@@ -222,19 +174,9 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
     }
 
     // Private helper methods
-    private void storeScheduledNotification(int id, String title, String body, long scheduledTime, ReadableMap data) {
+    private ScheduledNotificationStore.ScheduledNotification createScheduledNotification(int id, String title, String body, long scheduledTime, ReadableMap data, long toleranceMs) {
+        String dataJson = null;
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences("LocalNotifications", Context.MODE_PRIVATE);
-            String existingJson = prefs.getString("scheduled_notifications", "[]");
-            
-            JSONArray jsonArray = new JSONArray(existingJson);
-            JSONObject newNotif = new JSONObject();
-            
-            newNotif.put("id", id);
-            newNotif.put("title", title);
-            newNotif.put("body", body);
-            newNotif.put("scheduledTime", scheduledTime);
-            
             if (data != null) {
                 JSONObject dataObj = new JSONObject();
                 ReadableMapKeySetIterator iterator = data.keySetIterator();
@@ -254,11 +196,17 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
                             break;
                     }
                 }
-                newNotif.put("data", dataObj);
+                dataJson = dataObj.toString();
             }
-            
-            jsonArray.put(newNotif);
-            prefs.edit().putString("scheduled_notifications", jsonArray.toString()).apply();
+        } catch (Exception e) {
+            android.util.Log.e("LocalNotificationManager", "Failed to convert notification data", e);
+        }
+        return new ScheduledNotificationStore.ScheduledNotification(id, title, body, scheduledTime, dataJson, toleranceMs);
+    }
+
+    private void storeScheduledNotification(ScheduledNotificationStore.ScheduledNotification notification) {
+        try {
+            scheduledStore.put(notification);
         } catch (Exception e) {
             // Log error but don't throw
             android.util.Log.e("LocalNotificationManager", "Failed to store notification", e);
@@ -267,20 +215,7 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
 
     private void removeScheduledNotification(int id) {
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences("LocalNotifications", Context.MODE_PRIVATE);
-            String existingJson = prefs.getString("scheduled_notifications", "[]");
-            
-            JSONArray jsonArray = new JSONArray(existingJson);
-            JSONArray newArray = new JSONArray();
-            
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject notifObj = jsonArray.getJSONObject(i);
-                if (notifObj.optInt("id", 0) != id) {
-                    newArray.put(notifObj);
-                }
-            }
-            
-            prefs.edit().putString("scheduled_notifications", newArray.toString()).apply();
+            scheduledStore.remove(id);
         } catch (Exception e) {
             android.util.Log.e("LocalNotificationManager", "Failed to remove notification", e);
         }
@@ -289,14 +224,7 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
     private List<Integer> getScheduledNotificationIds() {
         List<Integer> ids = new ArrayList<>();
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences("LocalNotifications", Context.MODE_PRIVATE);
-            String notificationsJson = prefs.getString("scheduled_notifications", "[]");
-            
-            JSONArray jsonArray = new JSONArray(notificationsJson);
-            for (int i = 0; i < jsonArray.length(); i++) {
-                JSONObject notifObj = jsonArray.getJSONObject(i);
-                ids.add(notifObj.optInt("id", 0));
-            }
+            ids = scheduledStore.getIds();
         } catch (Exception e) {
             android.util.Log.e("LocalNotificationManager", "Failed to get notification IDs", e);
         }
@@ -305,8 +233,7 @@ public class LocalNotificationManagerModule extends ReactContextBaseJavaModule {
 
     private void clearAllScheduledNotifications() {
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences("LocalNotifications", Context.MODE_PRIVATE);
-            prefs.edit().putString("scheduled_notifications", "[]").apply();
+            scheduledStore.clear();
         } catch (Exception e) {
             android.util.Log.e("LocalNotificationManager", "Failed to clear notifications", e);
         }
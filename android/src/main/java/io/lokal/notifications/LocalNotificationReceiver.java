@@ -3,26 +3,91 @@ package io.lokal.notifications;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.app.NotificationManager;
 import android.os.Bundle;
 import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import java.util.ArrayList;
+import java.util.List;
 
 public class LocalNotificationReceiver extends BroadcastReceiver {
     
     @Override
     public void onReceive(Context context, Intent intent) {
+        // Posting and the store's SQLite work both run off the main thread
+        final Context appContext = context.getApplicationContext();
+        final boolean wakeup = LocalNotificationScheduler.ACTION_WAKEUP.equals(intent.getAction());
+        final PendingResult pendingResult = goAsync();
+        new Thread(() -> {
+            try {
+                if (wakeup) {
+                    postDueNotifications(appContext);
+                } else {
+                    postScheduledNotification(appContext, intent);
+                }
+            } catch (Exception e) {
+                android.util.Log.e("LocalNotificationReceiver", "Failed to post scheduled notifications", e);
+            } finally {
+                pendingResult.finish();
+            }
+        }, "LocalNotificationWakeup").start();
+    }
+
+    /**
+     * Post the notification of a per-entry alarm, then delete its entry unless it was
+     * re-scheduled meanwhile
+     */
+    private static void postScheduledNotification(Context context, Intent intent) {
+        if (!showNotification(context, intent)) {
+            return;
+        }
+        int notificationId = intent.getIntExtra(LocalNotificationScheduler.EXTRA_NOTIFICATION_ID, 0);
+        long scheduledTime = intent.getLongExtra(LocalNotificationScheduler.EXTRA_SCHEDULED_TIME, 0);
+        ScheduledNotificationStore store = ScheduledNotificationStore.getInstance(context);
+        ScheduledNotificationStore.ScheduledNotification stored = store.get(notificationId);
+        if (stored != null && stored.scheduledTime == scheduledTime) {
+            store.remove(notificationId);
+        }
+    }
+
+    /**
+     * Post every entry due within the coalescing window, then re-arm the wakeup alarm
+     * for the next pending entry. Entries are only deleted once they were shown, or once
+     * they are past the grace window so a failing post can't re-arm forever.
+     */
+    private static void postDueNotifications(Context context) {
+        ScheduledNotificationStore store = ScheduledNotificationStore.getInstance(context);
+        long now = System.currentTimeMillis();
+        long limit = now + LocalNotificationScheduler.getCoalesceWindow(context);
+
+        List<Integer> finishedIds = new ArrayList<>();
+        for (ScheduledNotificationStore.ScheduledNotification notification : store.getDue(limit)) {
+            if (showNotification(context, LocalNotificationScheduler.createAlarmIntent(context, notification))
+                    || notification.scheduledTime < now - LocalNotificationBootReceiver.GRACE_WINDOW_MS) {
+                finishedIds.add(notification.id);
+            }
+        }
+        store.removeAll(finishedIds);
+        LocalNotificationScheduler.rearm(context);
+    }
+
+    /**
+     * Build the notification described by an alarm intent and post it right away, bypassing
+     * the rate-limited post queue so the caller knows it was shown before deleting its entry
+     *
+     * @return true once the notification was handed to the system
+     */
+    static boolean showNotification(Context context, Intent intent) {
         try {
             // Extract notification data from intent
-            int notificationId = intent.getIntExtra("notification_id", 0);
-            String title = intent.getStringExtra("title");
-            String body = intent.getStringExtra("body");
-            long scheduledTime = intent.getLongExtra("scheduled_time", 0);
-            Bundle data = intent.getBundleExtra("data");
+            int notificationId = intent.getIntExtra(LocalNotificationScheduler.EXTRA_NOTIFICATION_ID, 0);
+            String title = intent.getStringExtra(LocalNotificationScheduler.EXTRA_TITLE);
+            String body = intent.getStringExtra(LocalNotificationScheduler.EXTRA_BODY);
+            long scheduledTime = intent.getLongExtra(LocalNotificationScheduler.EXTRA_SCHEDULED_TIME, 0);
+            Bundle data = intent.getBundleExtra(LocalNotificationScheduler.EXTRA_DATA);
             
             // Create and show the notification
-            NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-            
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, "LocalNotifications")
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(context,
+                    NotificationChannelRegistry.channelId(context, NotificationChannelRegistry.LOCAL_NOTIFICATIONS))
                 .setContentTitle(title)
                 .setContentText(body)
                 .setSmallIcon(getNotificationIcon(context))
@@ -44,14 +109,15 @@ public class LocalNotificationReceiver extends BroadcastReceiver {
                 }
             }
             
-            notificationManager.notify(notificationId, builder.build());
-            
+            NotificationManagerCompat.from(context).notify(notificationId, builder.build());
+            return true;
         } catch (Exception e) {
             android.util.Log.e("LocalNotificationReceiver", "Failed to show scheduled notification", e);
+            return false;
         }
     }
     
-    private int getNotificationIcon(Context context) {
+    private static int getNotificationIcon(Context context) {
         try {
             return context.getApplicationInfo().icon;
         } catch (Exception e) {
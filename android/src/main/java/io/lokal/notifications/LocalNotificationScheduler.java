@@ -0,0 +1,233 @@
+package io.lokal.notifications;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Bundle;
+import org.json.JSONObject;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Registers and cancels the AlarmManager alarms of scheduled local notifications.
+ * Shared by the JS module, the alarm receiver and the boot receiver so an alarm
+ * armed from any of them carries the same intent and request code.
+ *
+ * In coalescing mode no alarm is registered per notification. A single wakeup alarm is
+ * kept armed for the earliest pending entry, and on each wakeup everything due within
+ * the coalescing window is posted before the alarm is re-armed for the next entry.
+ */
+public class LocalNotificationScheduler {
+
+    private static final String TAG = "LocalNotificationScheduler";
+
+    public static final String EXTRA_NOTIFICATION_ID = "notification_id";
+    public static final String EXTRA_TITLE = "title";
+    public static final String EXTRA_BODY = "body";
+    public static final String EXTRA_SCHEDULED_TIME = "scheduled_time";
+    public static final String EXTRA_DATA = "data";
+
+    // Action of the single alarm used in coalescing mode
+    public static final String ACTION_WAKEUP = "io.lokal.notifications.LOCAL_NOTIFICATION_WAKEUP";
+
+    private static final String PREFS_NAME = "LocalNotifications";
+    private static final String KEY_COALESCE = "coalesce_alarms";
+    private static final String KEY_COALESCE_WINDOW = "coalesce_window_ms";
+
+    // Entries due this soon after a wakeup are posted with it
+    public static final long DEFAULT_COALESCE_WINDOW_MS = 60 * 1000L;
+
+    public static boolean isCoalescing(Context context) {
+        return getPreferences(context).getBoolean(KEY_COALESCE, false);
+    }
+
+    public static long getCoalesceWindow(Context context) {
+        return getPreferences(context).getLong(KEY_COALESCE_WINDOW, DEFAULT_COALESCE_WINDOW_MS);
+    }
+
+    /**
+     * Switch between one alarm per notification and a single coalesced wakeup alarm,
+     * moving the alarms of everything already scheduled over to the new mode.
+     */
+    public static void setCoalescing(Context context, boolean enabled, long windowMs) {
+        boolean wasCoalescing = isCoalescing(context);
+        getPreferences(context).edit()
+            .putBoolean(KEY_COALESCE, enabled)
+            .putLong(KEY_COALESCE_WINDOW, Math.max(0, windowMs))
+            .apply();
+
+        if (enabled == wasCoalescing) {
+            if (enabled) {
+                rearm(context);
+            }
+            return;
+        }
+
+        List<ScheduledNotificationStore.ScheduledNotification> pending =
+            ScheduledNotificationStore.getInstance(context).getAll();
+        if (enabled) {
+            for (ScheduledNotificationStore.ScheduledNotification notification : pending) {
+                cancelAlarm(context, notification.id);
+            }
+            rearm(context);
+        } else {
+            getAlarmManager(context).cancel(createWakeupPendingIntent(context));
+            for (ScheduledNotificationStore.ScheduledNotification notification : pending) {
+                armAlarm(context, notification);
+            }
+        }
+    }
+
+    /**
+     * Arm the alarm of a stored notification, replacing any alarm already set for its id.
+     * In coalescing mode this only moves the wakeup alarm if the entry is now the earliest.
+     */
+    public static void schedule(Context context, ScheduledNotificationStore.ScheduledNotification notification) {
+        if (isCoalescing(context)) {
+            rearm(context);
+        } else {
+            armAlarm(context, notification);
+        }
+    }
+
+    /**
+     * Cancel the alarm of a notification whose entry was already removed from the store
+     */
+    public static void cancel(Context context, int id) {
+        cancelAlarm(context, id);
+        if (isCoalescing(context)) {
+            rearm(context);
+        }
+    }
+
+    /**
+     * Cancel the alarms of all these notifications and the wakeup alarm
+     */
+    public static void cancelAll(Context context, List<Integer> ids) {
+        for (int id : ids) {
+            cancelAlarm(context, id);
+        }
+        getAlarmManager(context).cancel(createWakeupPendingIntent(context));
+    }
+
+    /**
+     * Point the wakeup alarm at the earliest pending entry, or cancel it when nothing is pending.
+     * The alarm is exact unless every entry in reach tolerates a later delivery, in which case
+     * an inexact window lets the system batch it with other wakeups.
+     */
+    public static void rearm(Context context) {
+        AlarmManager alarmManager = getAlarmManager(context);
+        PendingIntent pendingIntent = createWakeupPendingIntent(context);
+
+        long[] window = ScheduledNotificationStore.getInstance(context).getNextWakeupWindow();
+        if (window == null) {
+            alarmManager.cancel(pendingIntent);
+            return;
+        }
+        setAlarm(alarmManager, window[0], window[1] - window[0], pendingIntent);
+    }
+
+    private static void armAlarm(Context context, ScheduledNotificationStore.ScheduledNotification notification) {
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+            context,
+            notification.id,
+            createAlarmIntent(context, notification),
+            PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
+        );
+        setAlarm(getAlarmManager(context), notification.scheduledTime, notification.toleranceMs, pendingIntent);
+    }
+
+    private static void cancelAlarm(Context context, int id) {
+        Intent intent = new Intent(context, LocalNotificationReceiver.class);
+        PendingIntent pendingIntent = PendingIntent.getBroadcast(
+            context,
+            id,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
+        );
+        getAlarmManager(context).cancel(pendingIntent);
+    }
+
+    private static void setAlarm(AlarmManager alarmManager, long triggerTime, long toleranceMs, PendingIntent pendingIntent) {
+        if (toleranceMs > 0) {
+            // Non-critical reminders let the system pick any moment in the window
+            alarmManager.setWindow(AlarmManager.RTC_WAKEUP, triggerTime, toleranceMs, pendingIntent);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            // Exact alarm access was revoked, fall back to an inexact alarm rather than throwing
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
+        } else {
+            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
+        }
+    }
+
+    private static PendingIntent createWakeupPendingIntent(Context context) {
+        Intent intent = new Intent(context, LocalNotificationReceiver.class);
+        intent.setAction(ACTION_WAKEUP);
+        return PendingIntent.getBroadcast(
+            context,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
+        );
+    }
+
+    private static AlarmManager getAlarmManager(Context context) {
+        return (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Intent delivered to LocalNotificationReceiver when the notification is due
+     */
+    public static Intent createAlarmIntent(Context context, ScheduledNotificationStore.ScheduledNotification notification) {
+        Intent intent = new Intent(context, LocalNotificationReceiver.class);
+        intent.putExtra(EXTRA_NOTIFICATION_ID, notification.id);
+        intent.putExtra(EXTRA_TITLE, notification.title);
+        intent.putExtra(EXTRA_BODY, notification.body);
+        intent.putExtra(EXTRA_SCHEDULED_TIME, notification.scheduledTime);
+
+        Bundle data = toBundle(notification.data);
+        if (data != null) {
+            intent.putExtra(EXTRA_DATA, data);
+        }
+        return intent;
+    }
+
+    /**
+     * Convert the stored JSON data into intent extras. Numbers are always passed as doubles,
+     * the same as values coming from a ReadableMap.
+     */
+    static Bundle toBundle(String dataJson) {
+        if (dataJson == null) {
+            return null;
+        }
+        Bundle bundle = new Bundle();
+        try {
+            JSONObject dataObj = new JSONObject(dataJson);
+            Iterator<String> keys = dataObj.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Object value = dataObj.get(key);
+
+                if (value instanceof String) {
+                    bundle.putString(key, (String) value);
+                } else if (value instanceof Number) {
+                    bundle.putDouble(key, ((Number) value).doubleValue());
+                } else if (value instanceof Boolean) {
+                    bundle.putBoolean(key, (Boolean) value);
+                }
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Failed to parse scheduled notification data", e);
+        }
+        return bundle;
+    }
+}
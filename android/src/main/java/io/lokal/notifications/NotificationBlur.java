@@ -0,0 +1,147 @@
+package io.lokal.notifications;
+
+import android.graphics.Bitmap;
+
+/**
+ * RenderScript free blur for the quiz notification background. The source is first
+ * downscaled to a tiny working size, then blurred with repeated separable box passes
+ * (a close approximation of a gaussian) over an int[] pixel buffer that is reused
+ * across calls. The result stays tiny; the blurr_view ImageView upscales it with fitXY.
+ */
+public class NotificationBlur {
+
+    private static final String TAG = "NotificationBlur";
+
+    // Same defaults as the BlurTransformation(20, 3) used when re-creating notifications
+    public static final int DEFAULT_RADIUS = 20;
+    public static final int DEFAULT_SAMPLING = 3;
+
+    // Longest edge of the working bitmap, anything larger is invisible once blurred
+    private static final int MAX_WORKING_EDGE = 96;
+
+    // Three box passes approximate a gaussian kernel
+    private static final int BOX_PASSES = 3;
+
+    private static int[] pixelBuffer = new int[0];
+    private static int[] scratchBuffer = new int[0];
+
+    public static Bitmap blur(Bitmap source) {
+        return blur(source, DEFAULT_RADIUS, DEFAULT_SAMPLING);
+    }
+
+    /**
+     * Blur a bitmap the way BlurTransformation(radius, sampling) would look once upscaled.
+     *
+     * @param radius blur radius in pixels of the bitmap downsampled by {@code sampling}
+     * @param sampling downsampling factor the radius refers to
+     * @return a small blurred bitmap, or null if the source can't be blurred
+     */
+    public static Bitmap blur(Bitmap source, int radius, int sampling) {
+        if (source == null || source.isRecycled() || source.getWidth() == 0 || source.getHeight() == 0) {
+            return null;
+        }
+
+        int[] workingSize = workingSize(source.getWidth(), source.getHeight(), radius, sampling);
+        int width = workingSize[0];
+        int height = workingSize[1];
+        int workingRadius = workingSize[2];
+
+        try {
+            Bitmap working = Bitmap.createScaledBitmap(source, width, height, true);
+            Bitmap.Config config = source.hasAlpha() ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+            Bitmap result = Bitmap.createBitmap(width, height, config);
+
+            synchronized (NotificationBlur.class) {
+                int size = width * height;
+                ensureCapacity(size);
+                working.getPixels(pixelBuffer, 0, width, 0, 0, width, height);
+                boxBlur(pixelBuffer, scratchBuffer, width, height, workingRadius);
+                result.setPixels(pixelBuffer, 0, width, 0, 0, width, height);
+            }
+
+            if (working != source) {
+                working.recycle();
+            }
+            return result;
+        } catch (OutOfMemoryError e) {
+            android.util.Log.w(TAG, "Out of memory while blurring notification image", e);
+            return null;
+        }
+    }
+
+    /**
+     * Working bitmap width, height and blur radius for a source of this size
+     */
+    static int[] workingSize(int sourceWidth, int sourceHeight, int radius, int sampling) {
+        sampling = Math.max(1, sampling);
+        float scale = Math.min(1f / sampling, (float) MAX_WORKING_EDGE / Math.max(sourceWidth, sourceHeight));
+        return new int[]{
+            Math.max(1, Math.round(sourceWidth * scale)),
+            Math.max(1, Math.round(sourceHeight * scale)),
+            Math.max(1, Math.round(radius * scale * sampling))
+        };
+    }
+
+    private static void ensureCapacity(int size) {
+        if (pixelBuffer.length < size) {
+            pixelBuffer = new int[size];
+            scratchBuffer = new int[size];
+        }
+    }
+
+    /**
+     * Blur ARGB pixels in place. Each pass blurs rows while writing the result transposed,
+     * so running it twice covers both axes without a separate column loop.
+     * Pure Java so it can be exercised without an Android runtime.
+     *
+     * @param pixels row-major pixels of size width * height, replaced with the blurred output
+     * @param scratch buffer at least as large as pixels
+     */
+    static void boxBlur(int[] pixels, int[] scratch, int width, int height, int radius) {
+        if (radius < 1) {
+            return;
+        }
+        for (int pass = 0; pass < BOX_PASSES; pass++) {
+            blurRowsTransposed(pixels, scratch, width, height, radius);
+            blurRowsTransposed(scratch, pixels, height, width, radius);
+        }
+    }
+
+    private static void blurRowsTransposed(int[] in, int[] out, int width, int height, int radius) {
+        int divisor = radius * 2 + 1;
+        int lastX = width - 1;
+
+        for (int y = 0; y < height; y++) {
+            int rowStart = y * width;
+            int sumA = 0;
+            int sumR = 0;
+            int sumG = 0;
+            int sumB = 0;
+
+            // Prime the window, clamping at the edges
+            for (int i = -radius; i <= radius; i++) {
+                int pixel = in[rowStart + Math.min(Math.max(i, 0), lastX)];
+                sumA += pixel >>> 24;
+                sumR += (pixel >> 16) & 0xFF;
+                sumG += (pixel >> 8) & 0xFF;
+                sumB += pixel & 0xFF;
+            }
+
+            int outIndex = y;
+            for (int x = 0; x < width; x++) {
+                out[outIndex] = ((sumA / divisor) << 24)
+                    | ((sumR / divisor) << 16)
+                    | ((sumG / divisor) << 8)
+                    | (sumB / divisor);
+                outIndex += height;
+
+                int leaving = in[rowStart + Math.max(x - radius, 0)];
+                int entering = in[rowStart + Math.min(x + radius + 1, lastX)];
+                sumA += (entering >>> 24) - (leaving >>> 24);
+                sumR += ((entering >> 16) & 0xFF) - ((leaving >> 16) & 0xFF);
+                sumG += ((entering >> 8) & 0xFF) - ((leaving >> 8) & 0xFF);
+                sumB += (entering & 0xFF) - (leaving & 0xFF);
+            }
+        }
+    }
+}
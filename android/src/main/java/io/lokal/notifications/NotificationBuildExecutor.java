@@ -0,0 +1,182 @@
+package io.lokal.notifications;
+
+import android.os.Process;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool that builds and posts notifications off the native-modules and main threads.
+ * Tasks beyond the queue depth are rejected instead of piling up during a burst of pushes.
+ */
+public class NotificationBuildExecutor {
+
+    private static final String TAG = "NotificationBuildExecutor";
+
+    public static final int DEFAULT_POOL_SIZE = 2;
+    public static final int DEFAULT_QUEUE_DEPTH = 64;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static NotificationBuildExecutor instance;
+
+    private ThreadPoolExecutor executor;
+    private int poolSize;
+    private int queueDepth;
+
+    // Metrics
+    private long submitted;
+    private long completed;
+    private long failed;
+    private long rejected;
+    private long totalQueueWaitNanos;
+    private long maxQueueWaitNanos;
+    private long totalRunNanos;
+    private long maxRunNanos;
+
+    public static synchronized NotificationBuildExecutor getInstance() {
+        if (instance == null) {
+            instance = new NotificationBuildExecutor();
+        }
+        return instance;
+    }
+
+    private NotificationBuildExecutor() {
+        executor = createExecutor(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_DEPTH);
+    }
+
+    private ThreadPoolExecutor createExecutor(int poolSize, int queueDepth) {
+        this.poolSize = poolSize;
+        this.queueDepth = queueDepth;
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "NotificationBuild-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueDepth), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Replace the pool with one of the given size and queue depth. Tasks already queued
+     * on the old pool still run before its threads exit.
+     */
+    public synchronized void configure(int poolSize, int queueDepth) {
+        if (poolSize < 1 || queueDepth < 1) {
+            throw new IllegalArgumentException("Pool size and queue depth must be at least 1");
+        }
+        if (poolSize == this.poolSize && queueDepth == this.queueDepth) {
+            return;
+        }
+        ThreadPoolExecutor previous = executor;
+        executor = createExecutor(poolSize, queueDepth);
+        previous.shutdown();
+    }
+
+    /**
+     * Queue a build task
+     *
+     * @throws RejectedExecutionException when the queue is full
+     */
+    public void execute(Runnable task) {
+        final long enqueuedAt = System.nanoTime();
+        Runnable timedTask = () -> {
+            long startedAt = System.nanoTime();
+            boolean success = false;
+            try {
+                task.run();
+                success = true;
+            } catch (RuntimeException e) {
+                android.util.Log.e(TAG, "Notification build task failed", e);
+            } finally {
+                recordRun(startedAt - enqueuedAt, System.nanoTime() - startedAt, success);
+            }
+        };
+
+        ThreadPoolExecutor target;
+        synchronized (this) {
+            target = executor;
+            submitted++;
+        }
+        try {
+            target.execute(timedTask);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                rejected++;
+            }
+            android.util.Log.w(TAG, "Notification build queue is full, rejecting task");
+            throw e;
+        }
+    }
+
+    private synchronized void recordRun(long queueWaitNanos, long runNanos, boolean success) {
+        if (success) {
+            completed++;
+        } else {
+            failed++;
+        }
+        totalQueueWaitNanos += queueWaitNanos;
+        maxQueueWaitNanos = Math.max(maxQueueWaitNanos, queueWaitNanos);
+        totalRunNanos += runNanos;
+        maxRunNanos = Math.max(maxRunNanos, runNanos);
+    }
+
+    public synchronized int getPoolSize() {
+        return poolSize;
+    }
+
+    public synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public synchronized int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public synchronized int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public synchronized long getSubmittedCount() {
+        return submitted;
+    }
+
+    public synchronized long getCompletedCount() {
+        return completed;
+    }
+
+    public synchronized long getFailedCount() {
+        return failed;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    public synchronized double getAverageQueueWaitMs() {
+        long runs = completed + failed;
+        return runs == 0 ? 0 : totalQueueWaitNanos / (double) runs / 1000000d;
+    }
+
+    public synchronized double getMaxQueueWaitMs() {
+        return maxQueueWaitNanos / 1000000d;
+    }
+
+    public synchronized double getAverageRunMs() {
+        long runs = completed + failed;
+        return runs == 0 ? 0 : totalRunNanos / (double) runs / 1000000d;
+    }
+
+    public synchronized double getMaxRunMs() {
+        return maxRunNanos / 1000000d;
+    }
+}
@@ -0,0 +1,68 @@
+package io.lokal.notifications;
+
+/**
+ * Per-stage timing of the custom layout build path, in nanoseconds
+ */
+public final class NotificationBuildTimings {
+
+    public static final int STAGE_TEXT = 0;
+    public static final int STAGE_IMAGES = 1;
+    public static final int STAGE_BIND = 2;
+    public static final int STAGE_POST = 3;
+
+    private static final String[] STAGE_NAMES = {"text", "images", "bind", "post"};
+
+    private static long builds;
+    private static final long[] totalNanos = new long[STAGE_NAMES.length];
+    private static final long[] lastNanos = new long[STAGE_NAMES.length];
+
+    private NotificationBuildTimings() {
+    }
+
+    /**
+     * Record one build from the timestamps taken at the start and after each stage
+     */
+    public static synchronized void record(long start, long textDone, long imagesDone, long bindDone, long postDone) {
+        builds++;
+        add(STAGE_TEXT, textDone - start);
+        add(STAGE_IMAGES, imagesDone - textDone);
+        add(STAGE_BIND, bindDone - imagesDone);
+        add(STAGE_POST, postDone - bindDone);
+    }
+
+    private static void add(int stage, long nanos) {
+        totalNanos[stage] += nanos;
+        lastNanos[stage] = nanos;
+    }
+
+    public static synchronized long getBuildCount() {
+        return builds;
+    }
+
+    public static String getStageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    public static int getStageCount() {
+        return STAGE_NAMES.length;
+    }
+
+    /**
+     * Average time of a stage in milliseconds, 0 before the first build
+     */
+    public static synchronized double getAverageMs(int stage) {
+        return builds == 0 ? 0 : totalNanos[stage] / (double) builds / 1000000d;
+    }
+
+    public static synchronized double getLastMs(int stage) {
+        return lastNanos[stage] / 1000000d;
+    }
+
+    public static synchronized void reset() {
+        builds = 0;
+        for (int i = 0; i < STAGE_NAMES.length; i++) {
+            totalNanos[i] = 0;
+            lastNanos[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.lokal.notifications;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.text.TextUtils;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The notification channels this library posts to. The desired set is compared with the
+ * channels the system already has once per process, and only missing or renamed channels
+ * are created. Every builder resolves its channel id here, so a notification is never posted
+ * to a channel that does not exist. If the comparison fails it is not retried, channels are
+ * then created one by one the first time they are used.
+ *
+ * Existing channels are never deleted: a deleted channel takes the user's settings for it
+ * with it, and is restored with them if it is ever created again.
+ */
+public final class NotificationChannelRegistry {
+
+    private static final String TAG = "NotificationChannelRegistry";
+
+    public static final String RECOMMENDATION = "Recommendation";
+    public static final String CRICKET = "Cricket";
+    public static final String LOCAL_NOTIFICATIONS = "LocalNotifications";
+
+    private static final ChannelSpec[] DESIRED = {
+        new ChannelSpec(RECOMMENDATION, "Recommendations", NotificationManager.IMPORTANCE_HIGH),
+        new ChannelSpec(CRICKET, "Cricket Updates", NotificationManager.IMPORTANCE_LOW),
+        new ChannelSpec("Comments", "Comments", NotificationManager.IMPORTANCE_LOW),
+        new ChannelSpec("Downloads", "Downloads", NotificationManager.IMPORTANCE_LOW),
+        new ChannelSpec("Uploads", "Uploads", NotificationManager.IMPORTANCE_LOW),
+        new ChannelSpec(LOCAL_NOTIFICATIONS, "Reminders", NotificationManager.IMPORTANCE_DEFAULT)
+    };
+
+    // Set once the first reconciliation has run, whether or not it succeeded
+    private static boolean reconciled;
+    // Channel ids known to exist in this process
+    private static final Set<String> existingIds = new HashSet<>();
+
+    private static class ChannelSpec {
+        final String id;
+        final String name;
+        final int importance;
+
+        ChannelSpec(String id, String name, int importance) {
+            this.id = id;
+            this.name = name;
+            this.importance = importance;
+        }
+
+        String description() {
+            return "Channel for " + name;
+        }
+    }
+
+    private NotificationChannelRegistry() {
+    }
+
+    /**
+     * Bring the system channels in line with the desired set. Only the first call per
+     * process talks to the notification service.
+     */
+    public static synchronized void ensureChannels(Context context) {
+        if (reconciled) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            reconciled = true;
+            return;
+        }
+        try {
+            NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            Map<String, NotificationChannel> existing = new HashMap<>();
+            for (NotificationChannel channel : notificationManager.getNotificationChannels()) {
+                existing.put(channel.getId(), channel);
+            }
+            existingIds.addAll(existing.keySet());
+
+            for (ChannelSpec spec : DESIRED) {
+                NotificationChannel current = existing.get(spec.id);
+                // Importance belongs to the user once created, only the labels are kept in sync
+                if (current == null
+                        || !TextUtils.equals(current.getName(), spec.name)
+                        || !TextUtils.equals(current.getDescription(), spec.description())) {
+                    NotificationChannel channel = new NotificationChannel(spec.id, spec.name, spec.importance);
+                    channel.setDescription(spec.description());
+                    notificationManager.createNotificationChannel(channel);
+                }
+                existingIds.add(spec.id);
+            }
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Failed to reconcile notification channels, creating them on first use", e);
+        }
+        reconciled = true;
+    }
+
+    /**
+     * Id of the channel to post to for a channel name given by the caller. Package-prefixed
+     * names map to the plain channel, and a channel not known to exist is created the first
+     * time it is used.
+     */
+    public static synchronized String channelId(Context context, String channel) {
+        ensureChannels(context);
+
+        String id = TextUtils.isEmpty(channel) ? RECOMMENDATION : channel;
+        String legacyPrefix = context.getPackageName() + "_";
+        if (id.startsWith(legacyPrefix) && id.length() > legacyPrefix.length()) {
+            id = id.substring(legacyPrefix.length());
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && !existingIds.contains(id)) {
+            try {
+                NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+                ChannelSpec spec = findDesired(id);
+                if (spec == null) {
+                    spec = new ChannelSpec(id, id, NotificationManager.IMPORTANCE_DEFAULT);
+                }
+                // Creating a channel that already exists only updates its labels
+                NotificationChannel created = new NotificationChannel(spec.id, spec.name, spec.importance);
+                created.setDescription(spec.description());
+                notificationManager.createNotificationChannel(created);
+                existingIds.add(id);
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Failed to create notification channel " + id, e);
+            }
+        }
+        return id;
+    }
+
+    private static ChannelSpec findDesired(String id) {
+        for (ChannelSpec spec : DESIRED) {
+            if (spec.id.equals(id)) {
+                return spec;
+            }
+        }
+        return null;
+    }
+}
@@ -3,8 +3,6 @@ package io.lokal.notifications;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import com.facebook.react.bridge.Arguments;
-import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.ReactApplication;
 import com.facebook.react.ReactInstanceManager;
@@ -39,27 +37,17 @@ public class NotificationClickReceiver extends BroadcastReceiver {
             int importance = intent.getIntExtra(IMPORTANCE_EXTRA, 0);
             int groupId = intent.getIntExtra(GROUP_NOTIF_ID_EXTRA, 0);
 
-            // Create data object for React Native (matching interface)
-            WritableMap data = Arguments.createMap();
-            data.putInt("notificationId", notificationId);
-            data.putString("action", action != null ? action : "");
-            data.putString("uri", uri != null ? uri : "");
-            data.putString("categoryId", categoryId != null ? categoryId : "");
-            data.putString("categoryName", categoryName != null ? categoryName : "");
-            data.putString("tag", tag != null ? tag : "");
-            data.putString("channel", channel != null ? channel : "");
-            data.putInt("importance", importance);
-            data.putBoolean("isPersonalized", isPersonalized);
-            data.putInt("groupId", groupId);
-            
-            // Add extras map for additional data
-            WritableMap extras = Arguments.createMap();
-            extras.putString("source", "notification_click");
-            extras.putLong("timestamp", System.currentTimeMillis());
-            data.putMap("extras", extras);
+            // Auto cancel removes the notification without firing its delete intent
+            NotificationGroupRegistry.getInstance(context).onCancelled(notificationId);
+            ActiveNotificationSnapshot.invalidate();
+
+            PendingClickEventQueue.ClickEvent event = new PendingClickEventQueue.ClickEvent(notificationId, action, uri,
+                categoryId, categoryName, tag, channel, importance, isPersonalized, groupId, System.currentTimeMillis());
 
-            // Send event to React Native
-            sendEventToReactNative(context, "onNotificationClick", data);
+            // Keep the event until JS drains the queue, or send it right away once JS listens
+            if (!PendingClickEventQueue.getInstance(context).appendUnlessConsumerReady(event)) {
+                sendEventToReactNative(context, event);
+            }
 
             // Launch main activity (exact Android logic)
             Intent launchIntent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
@@ -84,7 +72,7 @@ public class NotificationClickReceiver extends BroadcastReceiver {
         }
     }
 
-    private void sendEventToReactNative(Context context, String eventName, WritableMap params) {
+    private void sendEventToReactNative(Context context, PendingClickEventQueue.ClickEvent event) {
         try {
             // Get React Native context and send event
             ReactApplication reactApplication = (ReactApplication) context.getApplicationContext();
@@ -95,14 +83,14 @@ public class NotificationClickReceiver extends BroadcastReceiver {
                 if (reactContext != null && reactContext.hasActiveCatalystInstance()) {
                     reactContext
                         .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                        .emit(eventName, params);
-                } else {
-                    // React Native context not ready, store event for later
-                    android.util.Log.w("NotificationClick", "React Native context not ready, event will be lost");
+                        .emit("onNotificationClick", event.toWritableMap());
+                    return;
                 }
             }
         } catch (Exception e) {
             android.util.Log.e("NotificationClick", "Failed to send event to React Native", e);
         }
+        // The React instance went away after JS registered, keep the event for the next drain
+        PendingClickEventQueue.getInstance(context).append(event);
     }
 }
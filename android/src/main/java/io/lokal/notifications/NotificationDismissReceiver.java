@@ -0,0 +1,51 @@
+package io.lokal.notifications;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+/**
+ * Receives the delete intents of group summaries and grouped notifications so the group
+ * registry learns when the user swipes them away
+ */
+public class NotificationDismissReceiver extends BroadcastReceiver {
+
+    static final String ACTION_SUMMARY_DISMISSED = "io.lokal.notifications.GROUP_SUMMARY_DISMISSED";
+    static final String ACTION_CHILD_DISMISSED = "io.lokal.notifications.GROUP_CHILD_DISMISSED";
+    static final String EXTRA_NOTIFICATION_ID = "notification_id_extra";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!ACTION_SUMMARY_DISMISSED.equals(action) && !ACTION_CHILD_DISMISSED.equals(action)) {
+            return;
+        }
+        int notificationId = intent.getIntExtra(EXTRA_NOTIFICATION_ID, 0);
+        NotificationGroupRegistry.getInstance(context).onCancelled(notificationId);
+        ActiveNotificationSnapshot.invalidate();
+    }
+
+    /**
+     * Delete intent for a summary posted with this notification id
+     */
+    static PendingIntent createSummaryDeleteIntent(Context context, int notificationId) {
+        return createDeleteIntent(context, ACTION_SUMMARY_DISMISSED, notificationId);
+    }
+
+    /**
+     * Delete intent for a notification posted into a group with this notification id
+     */
+    static PendingIntent createChildDeleteIntent(Context context, int notificationId) {
+        return createDeleteIntent(context, ACTION_CHILD_DISMISSED, notificationId);
+    }
+
+    private static PendingIntent createDeleteIntent(Context context, String action, int notificationId) {
+        Intent intent = new Intent(context, NotificationDismissReceiver.class);
+        intent.setAction(action);
+        intent.putExtra(EXTRA_NOTIFICATION_ID, notificationId);
+        return PendingIntent.getBroadcast(context, notificationId, intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0));
+    }
+}
@@ -0,0 +1,370 @@
+package io.lokal.notifications;
+
+import android.app.Notification;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.text.TextUtils;
+import android.util.AtomicFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Members of each notification group as primitive int sets, persisted in a small binary file.
+ * Which group summaries are showing is tracked in memory from the post queue's post and cancel
+ * events and from the delete and click intents of grouped notifications, so grouped posts never
+ * scan the active notifications. The active notifications are read once per process to pick up
+ * summaries still showing and to drop members removed while the process was gone.
+ * Replaces the comma-joined "matrimony_grouped_notif_id_<groupID>" preferences.
+ */
+public class NotificationGroupRegistry {
+
+    private static final String TAG = "NotificationGroupRegistry";
+
+    private static final String FILE_NAME = "notification_groups.bin";
+    private static final int FILE_MAGIC = 0x4C4E4752;
+    private static final int FILE_VERSION = 1;
+
+    // Legacy SharedPreferences storage, migrated once
+    private static final String LEGACY_PREFS_NAME = "NotificationPrefs";
+    private static final String LEGACY_KEY_PREFIX = "matrimony_grouped_notif_id_";
+
+    private static NotificationGroupRegistry instance;
+
+    private final AtomicFile file;
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+    private boolean writeScheduled;
+
+    // Group id to member ids, and member id back to its group
+    private final Map<Integer, IntSet> members = new HashMap<>();
+    private final Map<Integer, Integer> groupOfMember = new HashMap<>();
+    // Groups whose summary is showing to the notification id it was posted with, and back
+    private final Map<Integer, Integer> summaryIdOfGroup = new HashMap<>();
+    private final Map<Integer, Integer> groupOfSummaryId = new HashMap<>();
+
+    public static synchronized NotificationGroupRegistry getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotificationGroupRegistry(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private NotificationGroupRegistry(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        if (!read()) {
+            migrateFromPreferences(context);
+        }
+        seedActiveSummaries(context);
+    }
+
+    /**
+     * Add a notification to its group. A group whose summary is no longer showing starts over,
+     * like the legacy list which was reset once the summary was gone.
+     */
+    public synchronized void addMember(int groupId, int notificationId) {
+        IntSet group = members.get(groupId);
+        if (group == null) {
+            group = new IntSet();
+            members.put(groupId, group);
+        } else if (!isSummaryActive(groupId)) {
+            clearMembers(group);
+        }
+        Integer previousGroup = groupOfMember.put(notificationId, groupId);
+        if (previousGroup != null && previousGroup != groupId) {
+            IntSet previous = members.get(previousGroup);
+            if (previous != null) {
+                previous.remove(notificationId);
+            }
+        }
+        group.add(notificationId);
+        scheduleWrite();
+    }
+
+    public synchronized boolean isSummaryActive(int groupId) {
+        return summaryIdOfGroup.containsKey(groupId);
+    }
+
+    /**
+     * Members still showing or queued, kept current by the cancel, dismiss and click events
+     */
+    public synchronized int getMemberCount(int groupId) {
+        IntSet group = members.get(groupId);
+        return group != null ? group.size() : 0;
+    }
+
+    public synchronized boolean isMember(int groupId, int notificationId) {
+        Integer memberGroup = groupOfMember.get(notificationId);
+        return memberGroup != null && memberGroup == groupId;
+    }
+
+    public synchronized int[] getMembers(int groupId) {
+        IntSet group = members.get(groupId);
+        return group != null ? group.toArray() : new int[0];
+    }
+
+    /**
+     * Mark a summary as showing as soon as it is handed to the post queue, so children
+     * arriving before the queue drains still join the same group
+     */
+    public synchronized void markSummaryPosted(int groupId, int summaryId) {
+        putSummary(groupId, summaryId);
+    }
+
+    /**
+     * Called by the post queue after each notify
+     */
+    public synchronized void onPosted(int id, Notification notification) {
+        if ((notification.flags & Notification.FLAG_GROUP_SUMMARY) == 0) {
+            return;
+        }
+        int groupId = parseGroupId(notification);
+        if (groupId != 0) {
+            putSummary(groupId, id);
+        }
+    }
+
+    /**
+     * Called by the post queue when the app cancels a notification, and when the user
+     * dismisses or opens a grouped notification or a summary
+     */
+    public synchronized void onCancelled(int id) {
+        Integer summaryGroup = groupOfSummaryId.get(id);
+        if (summaryGroup != null) {
+            // Dismissing a summary takes its children with it
+            forgetSummary(summaryGroup);
+            return;
+        }
+        Integer groupId = groupOfMember.remove(id);
+        if (groupId != null) {
+            IntSet group = members.get(groupId);
+            if (group != null) {
+                group.remove(id);
+                // The system removes a summary once its last child is gone
+                if (group.isEmpty()) {
+                    forgetSummary(groupId);
+                }
+            }
+            scheduleWrite();
+        }
+    }
+
+    public synchronized void onAllCancelled() {
+        summaryIdOfGroup.clear();
+        groupOfSummaryId.clear();
+        members.clear();
+        groupOfMember.clear();
+        scheduleWrite();
+    }
+
+    private void putSummary(int groupId, int summaryId) {
+        Integer previousId = summaryIdOfGroup.put(groupId, summaryId);
+        if (previousId != null && previousId != summaryId) {
+            groupOfSummaryId.remove(previousId);
+        }
+        groupOfSummaryId.put(summaryId, groupId);
+    }
+
+    private void forgetSummary(int groupId) {
+        Integer summaryId = summaryIdOfGroup.remove(groupId);
+        if (summaryId != null) {
+            groupOfSummaryId.remove(summaryId);
+        }
+        IntSet group = members.get(groupId);
+        if (group != null) {
+            clearMembers(group);
+        }
+        scheduleWrite();
+    }
+
+    private void clearMembers(IntSet group) {
+        for (int memberId : group.toArray()) {
+            groupOfMember.remove(memberId);
+        }
+        group.clear();
+    }
+
+    private static int parseGroupId(Notification notification) {
+        String group = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH ? notification.getGroup() : null;
+        if (TextUtils.isEmpty(group)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(group);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Summaries posted by an earlier process are still showing, read them once at startup.
+     * Members dismissed while the process was gone are dropped here too, which is the only
+     * time the registry is checked against the active notifications.
+     */
+    private void seedActiveSummaries(Context context) {
+        ActiveNotificationSnapshot snapshot = ActiveNotificationSnapshot.get(context);
+        for (int i = 0; i < snapshot.size(); i++) {
+            onPosted(snapshot.ids[i], snapshot.getNotification(i));
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            // Active notifications can't be listed, keep what the file says
+            return;
+        }
+        boolean changed = false;
+        for (Map.Entry<Integer, IntSet> entry : members.entrySet()) {
+            IntSet group = entry.getValue();
+            for (int memberId : group.toArray()) {
+                if (!snapshot.contains(memberId)) {
+                    group.remove(memberId);
+                    groupOfMember.remove(memberId);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            scheduleWrite();
+        }
+    }
+
+    private void scheduleWrite() {
+        if (writeScheduled) {
+            return;
+        }
+        writeScheduled = true;
+        writeExecutor.execute(this::write);
+    }
+
+    private void write() {
+        int[] groupIds;
+        int[][] groupMembers;
+        synchronized (this) {
+            writeScheduled = false;
+            groupIds = new int[members.size()];
+            groupMembers = new int[members.size()][];
+            int i = 0;
+            for (Map.Entry<Integer, IntSet> entry : members.entrySet()) {
+                groupIds[i] = entry.getKey();
+                groupMembers[i] = entry.getValue().toArray();
+                i++;
+            }
+        }
+
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            int written = 0;
+            for (int[] group : groupMembers) {
+                if (group.length > 0) {
+                    written++;
+                }
+            }
+            out.writeInt(written);
+            for (int i = 0; i < groupIds.length; i++) {
+                if (groupMembers[i].length == 0) {
+                    continue;
+                }
+                out.writeInt(groupIds[i]);
+                out.writeInt(groupMembers[i].length);
+                for (int memberId : groupMembers[i]) {
+                    out.writeInt(memberId);
+                }
+            }
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            android.util.Log.e(TAG, "Failed to write notification groups", e);
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    /**
+     * @return false when there is no file yet
+     */
+    private boolean read() {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(file.openRead()));
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                android.util.Log.w(TAG, "Ignoring notification groups file with an unknown format");
+                return true;
+            }
+            int groupCount = in.readInt();
+            for (int i = 0; i < groupCount; i++) {
+                int groupId = in.readInt();
+                int memberCount = in.readInt();
+                IntSet group = new IntSet(memberCount);
+                for (int j = 0; j < memberCount; j++) {
+                    int memberId = in.readInt();
+                    group.add(memberId);
+                    groupOfMember.put(memberId, groupId);
+                }
+                members.put(groupId, group);
+            }
+            return true;
+        } catch (FileNotFoundException e) {
+            return false;
+        } catch (IOException e) {
+            android.util.Log.e(TAG, "Failed to read notification groups", e);
+            return true;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Move the comma-joined legacy lists into the registry, then drop the preferences
+     */
+    private void migrateFromPreferences(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = null;
+        for (Map.Entry<String, ?> entry : prefs.getAll().entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(LEGACY_KEY_PREFIX)) {
+                continue;
+            }
+            try {
+                int groupId = Integer.parseInt(key.substring(LEGACY_KEY_PREFIX.length()));
+                IntSet group = new IntSet();
+                Object value = entry.getValue();
+                if (value instanceof String && !((String) value).isEmpty()) {
+                    for (String memberId : ((String) value).split(",")) {
+                        int id = Integer.parseInt(memberId.trim());
+                        group.add(id);
+                        groupOfMember.put(id, groupId);
+                    }
+                }
+                members.put(groupId, group);
+            } catch (NumberFormatException e) {
+                android.util.Log.w(TAG, "Skipping malformed grouped notification ids under " + key);
+            }
+            if (editor == null) {
+                editor = prefs.edit();
+            }
+            editor.remove(key);
+        }
+        if (editor != null) {
+            write();
+            editor.apply();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.util.LruCache;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Two-tier cache of decoded notification images keyed by URL plus target size.
+ * Tier one is a strong LruCache bounded by a byte budget; bitmaps evicted from it
+ * move to a small soft-reference tier so a burst of pushes sharing the same hero
+ * image can still recover them without another Glide decode.
+ */
+public class NotificationImageCache {
+
+    private static final String TAG = "NotificationImageCache";
+
+    // Upper bound for the strong tier regardless of heap size
+    private static final int MAX_BUDGET_BYTES = 8 * 1024 * 1024;
+    private static final int SOFT_TIER_MAX_ENTRIES = 32;
+
+    private static NotificationImageCache instance;
+
+    private final LruCache<String, Bitmap> memoryCache;
+    private final Map<String, SoftReference<Bitmap>> softCache;
+
+    private long hitCount;
+    private long softHitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public static synchronized NotificationImageCache getInstance() {
+        if (instance == null) {
+            instance = new NotificationImageCache(defaultBudgetBytes());
+        }
+        return instance;
+    }
+
+    private static int defaultBudgetBytes() {
+        long heapBudget = Runtime.getRuntime().maxMemory() / 16;
+        return (int) Math.min(heapBudget, MAX_BUDGET_BYTES);
+    }
+
+    private NotificationImageCache(int budgetBytes) {
+        this.softCache = new LinkedHashMap<String, SoftReference<Bitmap>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Bitmap>> eldest) {
+                return size() > SOFT_TIER_MAX_ENTRIES;
+            }
+        };
+        this.memoryCache = new LruCache<String, Bitmap>(budgetBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (evicted) {
+                    evictionCount++;
+                    softCache.put(key, new SoftReference<>(oldValue));
+                }
+            }
+        };
+    }
+
+    /**
+     * Target size of the expanded "thumbnail" slot: full notification width by the
+     * expanded image height. Images are decoded and cached at this size only, since it is
+     * the largest slot; the smaller slots are cut from it by NotificationImageSizer.
+     */
+    public static int[] getThumbnailSlotSize(Context context) {
+        Resources resources = context.getResources();
+        return new int[]{
+            resources.getDisplayMetrics().widthPixels,
+            resources.getDimensionPixelSize(R.dimen.notification_image_height_expanded)
+        };
+    }
+
+    private static String buildKey(String url, int width, int height) {
+        return url + "@" + width + "x" + height;
+    }
+
+    public synchronized Bitmap get(String url, int width, int height) {
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        String key = buildKey(url, width, height);
+
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null && !bitmap.isRecycled()) {
+            hitCount++;
+            return bitmap;
+        }
+
+        SoftReference<Bitmap> reference = softCache.remove(key);
+        bitmap = reference != null ? reference.get() : null;
+        if (bitmap != null && !bitmap.isRecycled()) {
+            softHitCount++;
+            // Promote back into the strong tier
+            memoryCache.put(key, bitmap);
+            return bitmap;
+        }
+
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Store a bitmap for the given URL and target size. Glide may recycle bitmaps it owns
+     * once their request is cleared, so the cache always keeps its own copy.
+     *
+     * @return the cached copy, which callers should bind instead of the Glide resource
+     */
+    public synchronized Bitmap put(String url, int width, int height, Bitmap bitmap) {
+        if (url == null || url.isEmpty() || bitmap == null || bitmap.isRecycled()) {
+            return bitmap;
+        }
+        try {
+            Bitmap.Config config = bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.ARGB_8888;
+            Bitmap copy = bitmap.copy(config, false);
+            if (copy == null) {
+                return bitmap;
+            }
+            String key = buildKey(url, width, height);
+            softCache.remove(key);
+            memoryCache.put(key, copy);
+            return copy;
+        } catch (OutOfMemoryError e) {
+            android.util.Log.w(TAG, "Not caching image, out of memory: " + url);
+            memoryCache.evictAll();
+            return bitmap;
+        }
+    }
+
+    public synchronized void clear() {
+        memoryCache.evictAll();
+        softCache.clear();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getSoftHitCount() {
+        return softHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized int getSizeBytes() {
+        return memoryCache.size();
+    }
+
+    public synchronized int getMaxSizeBytes() {
+        return memoryCache.maxSize();
+    }
+
+    public synchronized int getEntryCount() {
+        return memoryCache.snapshot().size();
+    }
+}
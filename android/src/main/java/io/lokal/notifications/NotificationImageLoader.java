@@ -0,0 +1,245 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.transition.Transition;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of in-flight notification image loads.
+ * Concurrent requests for the same URL and size share one Glide load, a newer request for a
+ * notification id supersedes the older one, and each request falls back after a timeout.
+ * All state is confined to the main thread, where Glide delivers its callbacks.
+ */
+public class NotificationImageLoader {
+
+    private static final String TAG = "NotificationImageLoader";
+
+    public static final long DEFAULT_TIMEOUT_MS = 8000;
+
+    public interface Callback {
+        /**
+         * The image is ready, bitmap is the cached copy and safe to keep
+         */
+        void onLoaded(Bitmap bitmap);
+
+        /**
+         * The load failed or timed out, the notification should be posted without an image
+         */
+        void onFailed();
+
+        /**
+         * A newer request for the same notification id replaced this one
+         */
+        void onSuperseded();
+    }
+
+    private static NotificationImageLoader instance;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final NotificationImageCache imageCache = NotificationImageCache.getInstance();
+
+    // Loads in flight by URL and size, and the current request of each notification id
+    private final Map<String, InFlightLoad> loads = new HashMap<>();
+    private final Map<Integer, Request> requestsById = new HashMap<>();
+
+    private volatile long coalescedCount;
+    private volatile long supersededCount;
+    private volatile long timeoutCount;
+
+    public static synchronized NotificationImageLoader getInstance() {
+        if (instance == null) {
+            instance = new NotificationImageLoader();
+        }
+        return instance;
+    }
+
+    private NotificationImageLoader() {
+    }
+
+    private final class Request implements Runnable {
+        final int notificationId;
+        final InFlightLoad load;
+        final Callback callback;
+
+        Request(int notificationId, InFlightLoad load, Callback callback) {
+            this.notificationId = notificationId;
+            this.load = load;
+            this.callback = callback;
+        }
+
+        // Timeout
+        @Override
+        public void run() {
+            timeoutCount++;
+            android.util.Log.w(TAG, "Image load timed out for notification " + notificationId + ": " + load.url);
+            detach(this);
+            callback.onFailed();
+        }
+    }
+
+    private final class InFlightLoad extends CustomTarget<Bitmap> {
+        final String key;
+        final String url;
+        final int width;
+        final int height;
+        final List<Request> requests = new ArrayList<>();
+        final Context context;
+        boolean finished;
+
+        InFlightLoad(Context context, String key, String url, int width, int height) {
+            super(width, height);
+            this.context = context;
+            this.key = key;
+            this.url = url;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+            // Copy into the cache here, Glide may recycle the resource once this returns
+            Bitmap bitmap = imageCache.put(url, width, height, resource);
+            for (Request request : finish()) {
+                request.callback.onLoaded(bitmap);
+            }
+        }
+
+        @Override
+        public void onLoadFailed(@Nullable Drawable errorDrawable) {
+            for (Request request : finish()) {
+                request.callback.onFailed();
+            }
+        }
+
+        @Override
+        public void onLoadCleared(@Nullable Drawable placeholder) {
+            // Cleared by Glide rather than by cancel(), treat like a failure
+            for (Request request : finish()) {
+                request.callback.onFailed();
+            }
+        }
+
+        /**
+         * Stop tracking this load and return the requests still waiting on it
+         */
+        private List<Request> finish() {
+            if (finished) {
+                return new ArrayList<>();
+            }
+            finished = true;
+            loads.remove(key);
+            List<Request> waiting = new ArrayList<>(requests);
+            requests.clear();
+            for (Request request : waiting) {
+                mainHandler.removeCallbacks(request);
+                if (requestsById.get(request.notificationId) == request) {
+                    requestsById.remove(request.notificationId);
+                }
+            }
+            return waiting;
+        }
+    }
+
+    /**
+     * Load the image of a notification. The callback runs on the main thread, or right away
+     * on the calling thread when the image is already cached.
+     */
+    public void load(Context context, int notificationId, String url, int width, int height,
+                     long timeoutMs, Callback callback) {
+        Bitmap cached = imageCache.get(url, width, height);
+        if (cached != null) {
+            mainHandler.post(() -> cancel(notificationId));
+            callback.onLoaded(cached);
+            return;
+        }
+        final Context appContext = context.getApplicationContext();
+        mainHandler.post(() -> startLoad(appContext, notificationId, url, width, height, timeoutMs, callback));
+    }
+
+    private void startLoad(Context context, int notificationId, String url, int width, int height,
+                           long timeoutMs, Callback callback) {
+        // A newer version of this notification replaces the pending one
+        Request previous = requestsById.remove(notificationId);
+        if (previous != null) {
+            supersededCount++;
+            detach(previous);
+            previous.callback.onSuperseded();
+        }
+
+        String key = url + "#" + width + "x" + height;
+        InFlightLoad load = loads.get(key);
+        boolean isNewLoad = load == null;
+        if (isNewLoad) {
+            load = new InFlightLoad(context, key, url, width, height);
+            loads.put(key, load);
+        } else {
+            coalescedCount++;
+        }
+
+        Request request = new Request(notificationId, load, callback);
+        load.requests.add(request);
+        requestsById.put(notificationId, request);
+        mainHandler.postDelayed(request, timeoutMs > 0 ? timeoutMs : DEFAULT_TIMEOUT_MS);
+
+        // Started after the request is registered, Glide may deliver from memory synchronously
+        if (isNewLoad) {
+            Glide.with(context).asBitmap().load(url).into(load);
+        }
+    }
+
+    /**
+     * Drop the pending image load of a notification, e.g. when it is cancelled
+     */
+    public void cancel(int notificationId) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> cancel(notificationId));
+            return;
+        }
+        Request request = requestsById.remove(notificationId);
+        if (request != null) {
+            detach(request);
+            request.callback.onSuperseded();
+        }
+    }
+
+    /**
+     * Remove a request from its load, clearing the Glide request once nobody waits on it
+     */
+    private void detach(Request request) {
+        mainHandler.removeCallbacks(request);
+        if (requestsById.get(request.notificationId) == request) {
+            requestsById.remove(request.notificationId);
+        }
+        InFlightLoad load = request.load;
+        load.requests.remove(request);
+        if (load.requests.isEmpty() && !load.finished) {
+            load.finished = true;
+            loads.remove(load.key);
+            Glide.with(load.context).clear(load);
+        }
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public long getSupersededCount() {
+        return supersededCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+}
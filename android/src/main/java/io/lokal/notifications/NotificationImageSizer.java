@@ -0,0 +1,157 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Sizes notification bitmaps to the ImageView slots of each layout set before
+ * they are bound to RemoteViews. Every RemoteViews parcels its own copy of each bitmap,
+ * so binding a full resolution image three times per notification is what pushes
+ * large posts over the binder transaction limit.
+ */
+public class NotificationImageSizer {
+
+    private static final String TAG = "NotificationImageSizer";
+
+    private static long notificationsSized;
+    private static long totalBytesSaved;
+    private static long lastBytesSaved;
+
+    /**
+     * Bitmaps sized for each slot of a notification. Slots with the same
+     * dimensions share a single bitmap instance.
+     */
+    public static class SizedImages {
+        public final Bitmap collapsedIcon;
+        public final Bitmap headsUpIcon;
+        public final Bitmap thumbnail;
+        public final Bitmap blur;
+        public final long bytesSaved;
+
+        SizedImages(Bitmap collapsedIcon, Bitmap headsUpIcon, Bitmap thumbnail, Bitmap blur, long bytesSaved) {
+            this.collapsedIcon = collapsedIcon;
+            this.headsUpIcon = headsUpIcon;
+            this.thumbnail = thumbnail;
+            this.blur = blur;
+            this.bytesSaved = bytesSaved;
+        }
+    }
+
+    /**
+     * Scale the source and blur bitmaps to the image slots of the given layout set.
+     * Slot sizes come from the binding plans, as dimens so locale specific values-* overrides apply.
+     */
+    public static SizedImages prepare(Context context, NotificationLayouts.LayoutSet layouts, Bitmap bitmap, Bitmap blurrBitmap) {
+        if (bitmap == null && blurrBitmap == null) {
+            return new SizedImages(null, null, null, null, 0);
+        }
+
+        Resources resources = context.getResources();
+        NotificationLayouts.ImageSlot collapsedSlot = layouts.collapsed.imageSlot;
+        NotificationLayouts.ImageSlot headsUpSlot = layouts.headsUp.imageSlot;
+        NotificationLayouts.ImageSlot expandedSlot = layouts.expanded.imageSlot;
+
+        Bitmap collapsedIcon = scaleToSlot(resources, bitmap, collapsedSlot);
+        Bitmap headsUpIcon = sameSize(resources, headsUpSlot, collapsedSlot)
+            ? collapsedIcon
+            : scaleToSlot(resources, bitmap, headsUpSlot);
+        Bitmap thumbnail = scaleToSlot(resources, bitmap, expandedSlot);
+        Bitmap blur = scaleToSlot(resources, blurrBitmap, expandedSlot);
+
+        // Compare each source against the distinct bitmaps that replace it
+        long originalBytes = byteCount(bitmap) + byteCount(blurrBitmap);
+        long sizedBytes = byteCount(collapsedIcon) + byteCount(blur);
+        if (headsUpIcon != collapsedIcon) {
+            sizedBytes += byteCount(headsUpIcon);
+        }
+        if (thumbnail != collapsedIcon && thumbnail != headsUpIcon) {
+            sizedBytes += byteCount(thumbnail);
+        }
+        long bytesSaved = Math.max(0, originalBytes - sizedBytes);
+        recordBytesSaved(bytesSaved);
+
+        android.util.Log.d(TAG, "Sized notification images, saved " + bytesSaved + " bytes");
+        return new SizedImages(collapsedIcon, headsUpIcon, thumbnail, blur, bytesSaved);
+    }
+
+    private static Bitmap scaleToSlot(Resources resources, Bitmap source, NotificationLayouts.ImageSlot slot) {
+        if (slot == null) {
+            return source;
+        }
+        return scaleToFit(source, slotWidth(resources, slot), resources.getDimensionPixelSize(slot.heightRes));
+    }
+
+    private static boolean sameSize(Resources resources, NotificationLayouts.ImageSlot a, NotificationLayouts.ImageSlot b) {
+        if (a == b) {
+            return true;
+        }
+        return a != null && b != null
+            && slotWidth(resources, a) == slotWidth(resources, b)
+            && resources.getDimensionPixelSize(a.heightRes) == resources.getDimensionPixelSize(b.heightRes);
+    }
+
+    private static int slotWidth(Resources resources, NotificationLayouts.ImageSlot slot) {
+        return slot.widthRes != 0
+            ? resources.getDimensionPixelSize(slot.widthRes)
+            : resources.getDisplayMetrics().widthPixels;
+    }
+
+    /**
+     * Scale a bitmap down so it fits inside the slot while keeping its aspect ratio, matching
+     * the fitCenter scale type of the notification ImageViews. Opaque bitmaps are re-encoded
+     * as RGB_565 which halves their parcel size. Bitmaps already within the slot are returned as is.
+     */
+    public static Bitmap scaleToFit(Bitmap source, int maxWidth, int maxHeight) {
+        if (source == null || source.isRecycled() || maxWidth <= 0 || maxHeight <= 0) {
+            return source;
+        }
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        float scale = Math.min(1f, Math.min((float) maxWidth / width, (float) maxHeight / height));
+        boolean opaque = !source.hasAlpha();
+        if (scale >= 1f && (!opaque || source.getConfig() == Bitmap.Config.RGB_565)) {
+            return source;
+        }
+
+        int targetWidth = Math.max(1, Math.round(width * scale));
+        int targetHeight = Math.max(1, Math.round(height * scale));
+        try {
+            Bitmap target = Bitmap.createBitmap(targetWidth, targetHeight,
+                opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(target);
+            Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+            canvas.drawBitmap(source, null, new Rect(0, 0, targetWidth, targetHeight), paint);
+            return target;
+        } catch (OutOfMemoryError e) {
+            android.util.Log.w(TAG, "Out of memory while scaling notification image", e);
+            return source;
+        }
+    }
+
+    private static long byteCount(Bitmap bitmap) {
+        return bitmap != null && !bitmap.isRecycled() ? bitmap.getAllocationByteCount() : 0;
+    }
+
+    private static synchronized void recordBytesSaved(long bytesSaved) {
+        notificationsSized++;
+        totalBytesSaved += bytesSaved;
+        lastBytesSaved = bytesSaved;
+    }
+
+    public static synchronized long getNotificationsSized() {
+        return notificationsSized;
+    }
+
+    public static synchronized long getTotalBytesSaved() {
+        return totalBytesSaved;
+    }
+
+    public static synchronized long getLastBytesSaved() {
+        return lastBytesSaved;
+    }
+}
@@ -0,0 +1,230 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * File backed store for notification images that JS only refers to by handle.
+ * Each image is encoded once into the cache directory under a name derived from the
+ * hash of its source URL and transformation, so the same request never re-encodes
+ * and the pixels never cross the bridge as a base64 string.
+ *
+ * The directory is trimmed after every write: files unused for a week are removed, then
+ * the least recently used ones until the store fits its size cap.
+ */
+public class NotificationImageStore {
+
+    private static final String TAG = "NotificationImageStore";
+    private static final String DIRECTORY_NAME = "notification_images";
+
+    // Opaque prefix of handles returned to JS
+    public static final String HANDLE_PREFIX = "notifimg:";
+
+    private static final int JPEG_QUALITY = 90;
+
+    private static final long MAX_STORE_BYTES = 20L * 1024 * 1024;
+    private static final long MAX_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+
+    // Encoding is kept off the Glide callback (main) thread
+    private static final ExecutorService encodeExecutor = Executors.newSingleThreadExecutor();
+
+    public interface Callback {
+        void onStored(String handle, File file, int width, int height);
+
+        void onError(Exception e);
+    }
+
+    /**
+     * Build the handle for an image request. The variant describes the transformation,
+     * e.g. "original", "blur_20_3" or "size_600x300".
+     */
+    public static String createHandle(String imageUrl, String variant) {
+        return HANDLE_PREFIX + sha1(imageUrl + "|" + variant);
+    }
+
+    public static boolean isHandle(String value) {
+        return value != null && value.startsWith(HANDLE_PREFIX);
+    }
+
+    /**
+     * Resolve a handle to its file, or null if the handle is invalid or was never stored
+     */
+    public static File resolve(Context context, String handle) {
+        if (!isHandle(handle)) {
+            return null;
+        }
+        String name = handle.substring(HANDLE_PREFIX.length());
+        // Handles are hex digests, reject anything that could escape the directory
+        if (!name.matches("[0-9a-f]+")) {
+            return null;
+        }
+        File directory = getDirectory(context);
+        File jpeg = new File(directory, name + ".jpg");
+        if (jpeg.exists()) {
+            return jpeg;
+        }
+        File png = new File(directory, name + ".png");
+        return png.exists() ? png : null;
+    }
+
+    /**
+     * Read the dimensions of a stored image without decoding its pixels
+     */
+    public static int[] readSize(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        return new int[]{options.outWidth, options.outHeight};
+    }
+
+    /**
+     * Decode the bitmap behind a handle so notification builders can bind it directly
+     */
+    public static Bitmap decode(Context context, String handle) {
+        File file = resolve(context, handle);
+        if (file == null) {
+            android.util.Log.w(TAG, "Unknown image handle: " + handle);
+            return null;
+        }
+        markUsed(file);
+        return BitmapFactory.decodeFile(file.getAbsolutePath());
+    }
+
+    /**
+     * Encode a bitmap into the store on the encode thread. Opaque images are stored as JPEG,
+     * images with transparency as PNG. An already stored handle is not written again.
+     */
+    public static void store(Context context, String handle, Bitmap bitmap, Callback callback) {
+        File existing = resolve(context, handle);
+        if (existing != null) {
+            markUsed(existing);
+            callback.onStored(handle, existing, bitmap.getWidth(), bitmap.getHeight());
+            return;
+        }
+
+        // Glide may recycle its bitmap once the callback returns, so encode from a private copy
+        final Bitmap copy = bitmap.copy(bitmap.getConfig() != null ? bitmap.getConfig() : Bitmap.Config.ARGB_8888, false);
+        encodeExecutor.execute(() -> {
+            try {
+                boolean opaque = !copy.hasAlpha();
+                String name = handle.substring(HANDLE_PREFIX.length()) + (opaque ? ".jpg" : ".png");
+                File directory = getDirectory(context);
+                File target = new File(directory, name);
+                File temp = new File(directory, name + ".tmp");
+
+                OutputStream outputStream = new FileOutputStream(temp);
+                try {
+                    copy.compress(opaque ? Bitmap.CompressFormat.JPEG : Bitmap.CompressFormat.PNG,
+                        opaque ? JPEG_QUALITY : 100, outputStream);
+                } finally {
+                    outputStream.close();
+                }
+
+                // Rename so readers never see a partially written file
+                if (!temp.renameTo(target)) {
+                    temp.delete();
+                    throw new java.io.IOException("Failed to store image " + name);
+                }
+                trim(directory, target);
+                callback.onStored(handle, target, copy.getWidth(), copy.getHeight());
+            } catch (Exception e) {
+                callback.onError(e);
+            } finally {
+                copy.recycle();
+            }
+        });
+    }
+
+    public static void clear(Context context) {
+        File[] files = getDirectory(context).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    // Modification time doubles as last use time for the trim
+    private static void markUsed(File file) {
+        file.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Remove stale files, then the least recently used ones until the store fits its cap.
+     * Runs on the encode thread, the file just written is always kept.
+     */
+    private static void trim(File directory, File keep) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<File> remaining = new ArrayList<>(files.length);
+        long totalBytes = 0;
+        for (File file : files) {
+            if (!file.equals(keep) && now - file.lastModified() > MAX_AGE_MS) {
+                file.delete();
+            } else {
+                remaining.add(file);
+                totalBytes += file.length();
+            }
+        }
+        if (totalBytes <= MAX_STORE_BYTES) {
+            return;
+        }
+
+        final Map<File, Long> lastUsed = new HashMap<>();
+        for (File file : remaining) {
+            lastUsed.put(file, file.lastModified());
+        }
+        Collections.sort(remaining, (a, b) -> Long.compare(lastUsed.get(a), lastUsed.get(b)));
+        for (File file : remaining) {
+            if (totalBytes <= MAX_STORE_BYTES) {
+                break;
+            }
+            if (file.equals(keep)) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    private static File getDirectory(Context context) {
+        File directory = new File(context.getCacheDir(), DIRECTORY_NAME);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        return directory;
+    }
+
+    private static String sha1(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(value.getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+                builder.append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (Exception e) {
+            // SHA-1 and UTF-8 are always available on Android
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.lokal.notifications;
+
+/**
+ * Immutable table of the notification layouts in res/layout, resolved once per class load.
+ * Each layout comes with a binding plan listing the views it actually contains and the size
+ * of its image slot, so the setup methods in NotificationUtil only issue RemoteViews actions
+ * that apply, NotificationImageSizer sizes images from the same table, and neither branches
+ * on the version number for every notification.
+ */
+public final class NotificationLayouts {
+
+    // Views a layout may contain
+    public static final int VIEW_TITLE = 1;
+    public static final int VIEW_BODY = 1 << 1;
+    public static final int VIEW_ICON = 1 << 2;
+    public static final int VIEW_THUMBNAIL = 1 << 3;
+    public static final int VIEW_BLUR = 1 << 4;
+    // category_container, category_name and time_stamp of notification_header
+    public static final int VIEW_HEADER = 1 << 5;
+    public static final int VIEW_SHARE = 1 << 6;
+    public static final int VIEW_FOOTER = 1 << 7;
+
+    /**
+     * Size of the image a layout binds, as dimen resources so values-* overrides apply
+     */
+    public static final class ImageSlot {
+        // 0 when the image spans the screen width
+        public final int widthRes;
+        public final int heightRes;
+
+        ImageSlot(int widthRes, int heightRes) {
+            this.widthRes = widthRes;
+            this.heightRes = heightRes;
+        }
+    }
+
+    /**
+     * One layout and the setters it needs
+     */
+    public static final class BindingPlan {
+        public final int layoutId;
+        private final int views;
+        // Slot of the icon in collapsed and heads-up layouts, of the thumbnail in expanded ones;
+        // null when the layout binds no image
+        public final ImageSlot imageSlot;
+        // Title size override in sp, 0 keeps the size from the layout
+        public final float titleTextSizeSp;
+        // Title and body max lines depend on the body and the language
+        public final boolean adjustsLineCount;
+
+        BindingPlan(int layoutId, int views, ImageSlot imageSlot, float titleTextSizeSp, boolean adjustsLineCount) {
+            this.layoutId = layoutId;
+            this.views = views;
+            this.imageSlot = imageSlot;
+            this.titleTextSizeSp = titleTextSizeSp;
+            this.adjustsLineCount = adjustsLineCount;
+        }
+
+        public boolean has(int view) {
+            return (views & view) != 0;
+        }
+    }
+
+    /**
+     * Collapsed, expanded and heads-up layouts of one notification version
+     */
+    public static final class LayoutSet {
+        public final BindingPlan collapsed;
+        public final BindingPlan expanded;
+        public final BindingPlan headsUp;
+        // Whether the layouts are meant to be wrapped in DecoratedCustomViewStyle
+        public final boolean decorated;
+
+        LayoutSet(BindingPlan collapsed, BindingPlan expanded, BindingPlan headsUp, boolean decorated) {
+            this.collapsed = collapsed;
+            this.expanded = expanded;
+            this.headsUp = headsUp;
+            this.decorated = decorated;
+        }
+    }
+
+    private static BindingPlan plan(int layoutId, int views, ImageSlot imageSlot) {
+        return new BindingPlan(layoutId, views, imageSlot, 0, false);
+    }
+
+    private static final ImageSlot THUMB = new ImageSlot(R.dimen.notification_thumb_width, R.dimen.notification_thumb_height);
+    private static final ImageSlot HEADS_UP_ICON = new ImageSlot(R.dimen.notification_slot_headsup_icon_width,
+        R.dimen.notification_slot_headsup_icon_height);
+    private static final ImageSlot SIDE_ICON = new ImageSlot(R.dimen.notification_slot_side_icon_width,
+        R.dimen.notification_slot_collapsed_height);
+    private static final ImageSlot FULL_WIDTH_COLLAPSED = new ImageSlot(0, R.dimen.notification_slot_collapsed_height);
+    private static final ImageSlot EXPANDED_IMAGE = new ImageSlot(0, R.dimen.notification_slot_expanded_image_height);
+    private static final ImageSlot EXPANDED_LARGE_IMAGE = new ImageSlot(0, R.dimen.notification_image_height_expanded);
+
+    private static final int TEXT = VIEW_TITLE | VIEW_BODY;
+    private static final int IMAGES = VIEW_ICON | VIEW_THUMBNAIL | VIEW_BLUR;
+
+    public static final LayoutSet DEFAULT = new LayoutSet(
+        plan(R.layout.notification_small, TEXT | VIEW_ICON, THUMB),
+        plan(R.layout.notification_large, TEXT | IMAGES, EXPANDED_LARGE_IMAGE),
+        plan(R.layout.notification_headsup, TEXT | VIEW_ICON, HEADS_UP_ICON),
+        true);
+
+    private static final LayoutSet V1 = new LayoutSet(
+        plan(R.layout.notification_small_v1, VIEW_TITLE | VIEW_ICON | VIEW_HEADER, THUMB),
+        plan(R.layout.notification_large_v1, VIEW_TITLE | IMAGES | VIEW_HEADER | VIEW_SHARE | VIEW_FOOTER, EXPANDED_IMAGE),
+        plan(R.layout.notification_headsup_v1, VIEW_TITLE | VIEW_ICON | VIEW_HEADER, THUMB),
+        true);
+
+    private static final BindingPlan SMALL_V2 = plan(R.layout.notification_small_v2, VIEW_TITLE | VIEW_ICON | VIEW_HEADER, THUMB);
+    private static final LayoutSet V2 = new LayoutSet(
+        SMALL_V2,
+        plan(R.layout.notification_large_v2, TEXT | IMAGES | VIEW_HEADER, EXPANDED_IMAGE),
+        SMALL_V2,
+        true);
+
+    private static final BindingPlan SMALL_V3 = plan(R.layout.notification_small_v3, VIEW_TITLE | VIEW_ICON | VIEW_HEADER, THUMB);
+    private static final LayoutSet V3 = new LayoutSet(
+        SMALL_V3,
+        // The v3 footer is commented out in its layout
+        plan(R.layout.notification_large_v3, TEXT | IMAGES | VIEW_HEADER, EXPANDED_IMAGE),
+        SMALL_V3,
+        true);
+
+    private static final LayoutSet V4 = new LayoutSet(
+        plan(R.layout.notification_small_v4, TEXT | VIEW_ICON, THUMB),
+        plan(R.layout.notification_large_v4, TEXT | IMAGES, EXPANDED_LARGE_IMAGE),
+        plan(R.layout.notification_headsup_v4, TEXT | VIEW_ICON, HEADS_UP_ICON),
+        true);
+
+    // Version 5 enlarges the title that carries the concatenated body
+    private static final BindingPlan SMALL_V5 = new BindingPlan(R.layout.notification_small_v5,
+        VIEW_TITLE | VIEW_ICON | VIEW_BLUR, FULL_WIDTH_COLLAPSED, 16, false);
+    private static final LayoutSet V5 = new LayoutSet(
+        SMALL_V5,
+        new BindingPlan(R.layout.notification_large_v5, VIEW_TITLE | IMAGES, EXPANDED_LARGE_IMAGE, 16, false),
+        SMALL_V5,
+        false);
+
+    // Version 6 has always rendered the v7 layout files, with its own line-count rules on the
+    // collapsed and expanded views. The v6 files are not referenced.
+    private static final LayoutSet V6 = new LayoutSet(
+        new BindingPlan(R.layout.notification_small_v7, TEXT | VIEW_ICON | VIEW_BLUR, SIDE_ICON, 0, true),
+        new BindingPlan(R.layout.notification_large_v7, TEXT | IMAGES, EXPANDED_LARGE_IMAGE, 0, true),
+        plan(R.layout.notification_small_v7, TEXT | VIEW_ICON | VIEW_BLUR, SIDE_ICON),
+        false);
+
+    private static final BindingPlan SMALL_QUIZ = plan(R.layout.notification_small_quiz, TEXT | VIEW_ICON | VIEW_BLUR,
+        FULL_WIDTH_COLLAPSED);
+    public static final LayoutSet QUIZ = new LayoutSet(
+        SMALL_QUIZ,
+        plan(R.layout.notification_large_quiz, TEXT | IMAGES, EXPANDED_LARGE_IMAGE),
+        SMALL_QUIZ,
+        false);
+
+    // The sticky icon is the app logo, not a notification image
+    public static final BindingPlan STICKY = plan(R.layout.notification_sticky_small, VIEW_TITLE | VIEW_ICON, null);
+
+    // Uses local_title and local_body instead of the shared ids
+    public static final BindingPlan WITHOUT_IMAGE_LOCAL = plan(R.layout.notification_small_without_image_local, 0, null);
+
+    // Indexed by notification version, 0 and versions past the end (7 included) use the default set
+    private static final LayoutSet[] VERSIONS = {DEFAULT, V1, V2, V3, V4, V5, V6};
+
+    // Collapsed layouts for notifications without an image, null where a version has none
+    private static final BindingPlan[] WITHOUT_IMAGE = {
+        null,
+        plan(R.layout.notification_small_without_image_v1, TEXT | VIEW_HEADER, null),
+        null,
+        null,
+        null,
+        null,
+        // Text-only counterpart of the v7 files version 6 renders
+        new BindingPlan(R.layout.notification_small_without_image_v7, TEXT | VIEW_ICON, null, 0, true),
+    };
+
+    private NotificationLayouts() {
+    }
+
+    /**
+     * Layouts of a notification version, the default set for unknown versions
+     */
+    public static LayoutSet forVersion(int notificationVersion) {
+        return notificationVersion > 0 && notificationVersion < VERSIONS.length
+            ? VERSIONS[notificationVersion]
+            : DEFAULT;
+    }
+
+    /**
+     * Collapsed layout to use when a notification of this version has no image, or null
+     */
+    public static BindingPlan withoutImage(int notificationVersion) {
+        return notificationVersion > 0 && notificationVersion < WITHOUT_IMAGE.length
+            ? WITHOUT_IMAGE[notificationVersion]
+            : null;
+    }
+}
@@ -0,0 +1,128 @@
+package io.lokal.notifications;
+
+import android.app.Notification;
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Keeps the number of visible notifications of the app within the remote config limit by
+ * cancelling the oldest ones, ordered by notification_time_extra. Same rules as the JS
+ * NotificationLimiter it replaces, but done in one native pass that reads only the two
+ * extras it needs instead of serialising every extra across the bridge.
+ */
+public class NotificationLimiter {
+
+    private static final String TAG = "NotificationLimiter";
+
+    static final String NOTIFICATION_TIME_EXTRA = "notification_time_extra";
+    static final String NOTIFICATION_REFRESH_ID_EXTRA = "notification_refresh_id_extra";
+
+    /**
+     * Outcome of one limit check
+     */
+    public static class Result {
+        public final int activeCount;
+        public final int removedCount;
+        public final int limit;
+
+        Result(int activeCount, int removedCount, int limit) {
+            this.activeCount = activeCount;
+            this.removedCount = removedCount;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Keep the last values passed from JS, used to enforce the limit after each native post
+     */
+    public static void saveConfig(Context context, int limit, boolean keepAtTop) {
+        NotificationPreferences.edit(context)
+            .putInt(NotificationPreferences.KEY_NOTIFICATION_LIMIT, limit)
+            .putBoolean(NotificationPreferences.KEY_KEEP_AT_TOP, keepAtTop)
+            .apply();
+        NotificationPreferences.refresh(context);
+    }
+
+    /**
+     * Trim to the saved limit, run by the post queue once per drained batch that a limited
+     * post was part of. Posts still waiting in the post queue are counted too, so a burst
+     * queued behind the rate limiter can't overshoot the limit.
+     */
+    public static Result enforceConfiguredLimit(Context context) {
+        // Read from the preferences snapshot, the build path never touches SharedPreferences
+        NotificationPreferences prefs = NotificationPreferences.get(context);
+        return enforceLimit(context, prefs.notificationLimit, prefs.keepAtTop, true);
+    }
+
+    /**
+     * Cancel the oldest notifications beyond the limit. Without queued posts one slot is left
+     * free for the notification about to be posted, as the Android app does.
+     *
+     * @param includePending also count posts waiting in the post queue; the limit then applies as is
+     */
+    public static Result enforceLimit(Context context, int limit, boolean keepAtTop, boolean includePending) {
+        if (!keepAtTop || limit <= 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return new Result(0, 0, limit);
+        }
+        int keep = includePending || limit <= 1 ? limit : limit - 1;
+
+        ActiveNotificationSnapshot snapshot = ActiveNotificationSnapshot.get(context);
+        Map<Integer, Notification> pending = includePending
+            ? NotificationPostQueue.getInstance().getPendingNotifications()
+            : Collections.<Integer, Notification>emptyMap();
+
+        // Visible notifications, with a queued post for the same id taking the place of the visible one.
+        // Group summaries are left out, they go away with their children.
+        int capacity = snapshot.size() + pending.size();
+        long[] times = new long[capacity];
+        int[] cancelIds = new int[capacity];
+        int count = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (!pending.containsKey(snapshot.ids[i]) && !isGroupSummary(snapshot.getNotification(i))) {
+                times[count] = snapshot.times[i] != 0 ? snapshot.times[i] : snapshot.when[i];
+                cancelIds[count] = snapshot.refreshIds[i] != 0 ? snapshot.refreshIds[i] : snapshot.ids[i];
+                count++;
+            }
+        }
+        for (Map.Entry<Integer, Notification> entry : pending.entrySet()) {
+            Notification notification = entry.getValue();
+            if (isGroupSummary(notification)) {
+                continue;
+            }
+            Bundle extras = notification.extras;
+            long time = extras != null ? extras.getLong(NOTIFICATION_TIME_EXTRA, 0) : 0;
+            int refreshId = extras != null ? extras.getInt(NOTIFICATION_REFRESH_ID_EXTRA, 0) : 0;
+            times[count] = time != 0 ? time : notification.when;
+            cancelIds[count] = refreshId != 0 ? refreshId : entry.getKey();
+            count++;
+        }
+
+        if (count <= keep) {
+            return new Result(count, 0, keep);
+        }
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+
+        // Oldest first, notifications without a refresh id are cancelled by their own id
+        int removed = count - keep;
+        NotificationPostQueue postQueue = NotificationPostQueue.getInstance();
+        for (int i = 0; i < removed; i++) {
+            postQueue.cancel(context, cancelIds[order[i]]);
+        }
+
+        android.util.Log.d(TAG, "Removed " + removed + " of " + count + " notifications, limit " + keep);
+        return new Result(count - removed, removed, keep);
+    }
+
+    private static boolean isGroupSummary(Notification notification) {
+        return (notification.flags & Notification.FLAG_GROUP_SUMMARY) != 0;
+    }
+}
@@ -4,9 +4,6 @@ import com.facebook.react.bridge.*;
 import android.app.NotificationManager;
 import android.content.Context;
 import android.os.Build;
-import android.os.Bundle;
-import android.service.notification.StatusBarNotification;
-import androidx.annotation.RequiresApi;
 import java.util.*;
 
 public class NotificationLimiterModule extends ReactContextBaseJavaModule {
@@ -14,10 +11,6 @@ public class NotificationLimiterModule extends ReactContextBaseJavaModule {
     private NotificationManager notificationManager;
     private ReactApplicationContext reactContext;
 
-    // Constants matching Android implementation
-    private static final String NOTIFICATION_TIME_EXTRA = "notification_time_extra";
-    private static final String NOTIFICATION_REFRESH_ID_EXTRA = "notification_refresh_id_extra";
-
     public NotificationLimiterModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
@@ -29,72 +22,39 @@ public class NotificationLimiterModule extends ReactContextBaseJavaModule {
         return MODULE_NAME;
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.M)
     @ReactMethod
     public void getActiveNotifications(Promise promise) {
         try {
-            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
-                promise.resolve(Arguments.createArray());
-                return;
-            }
+            promise.resolve(ActiveNotificationSnapshot.get(reactContext).toNotificationArray());
+        } catch (Exception e) {
+            promise.reject("GET_ACTIVE_ERROR", e.getMessage());
+        }
+    }
 
-            StatusBarNotification[] notifications = notificationManager.getActiveNotifications();
-            WritableArray result = Arguments.createArray();
-            
-            for (StatusBarNotification notification : notifications) {
-                WritableMap notifMap = Arguments.createMap();
-                notifMap.putInt("id", notification.getId());
-                notifMap.putString("packageName", notification.getPackageName());
-                
-                WritableMap notificationData = Arguments.createMap();
-                WritableMap extras = Arguments.createMap();
-                
-                Bundle notificationExtras = notification.getNotification().extras;
-                if (notificationExtras != null) {
-                    // Extract timestamp for ordering (exact Android logic)
-                    if (notificationExtras.containsKey(NOTIFICATION_TIME_EXTRA)) {
-                        long timestamp = notificationExtras.getLong(NOTIFICATION_TIME_EXTRA, 0);
-                        extras.putDouble(NOTIFICATION_TIME_EXTRA, (double) timestamp);
-                    }
-                    
-                    // Extract refresh ID for cancellation
-                    if (notificationExtras.containsKey(NOTIFICATION_REFRESH_ID_EXTRA)) {
-                        int refreshId = notificationExtras.getInt(NOTIFICATION_REFRESH_ID_EXTRA, 0);
-                        extras.putInt(NOTIFICATION_REFRESH_ID_EXTRA, refreshId);
-                    }
-                    
-                    // Extract other relevant data
-                    for (String key : notificationExtras.keySet()) {
-                        Object value = notificationExtras.get(key);
-                        if (value instanceof String) {
-                            extras.putString(key, (String) value);
-                        } else if (value instanceof Integer) {
-                            extras.putInt(key, (Integer) value);
-                        } else if (value instanceof Long) {
-                            extras.putDouble(key, ((Long) value).doubleValue());
-                        } else if (value instanceof Boolean) {
-                            extras.putBoolean(key, (Boolean) value);
-                        }
-                    }
-                }
-                
-                notificationData.putMap("extras", extras);
-                notificationData.putDouble("when", notification.getNotification().when);
-                notifMap.putMap("notification", notificationData);
-                
-                result.pushMap(notifMap);
-            }
-            
+    /**
+     * Cancel the oldest notifications beyond the limit in one native pass. The values are
+     * kept so the same limit is enforced after every native post.
+     */
+    @ReactMethod
+    public void enforceLimit(int limit, boolean keepAtTop, Promise promise) {
+        try {
+            NotificationLimiter.saveConfig(reactContext, limit, keepAtTop);
+            NotificationLimiter.Result limitResult = NotificationLimiter.enforceLimit(reactContext, limit, keepAtTop, false);
+
+            WritableMap result = Arguments.createMap();
+            result.putInt("activeCount", limitResult.activeCount);
+            result.putInt("removedCount", limitResult.removedCount);
+            result.putInt("limit", limitResult.limit);
             promise.resolve(result);
         } catch (Exception e) {
-            promise.reject("GET_ACTIVE_ERROR", e.getMessage());
+            promise.reject("ENFORCE_LIMIT_ERROR", e.getMessage());
         }
     }
 
     @ReactMethod
     public void cancelNotification(int notificationId, Promise promise) {
         try {
-            notificationManager.cancel(notificationId);
+            NotificationPostQueue.getInstance().cancel(reactContext, notificationId);
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("CANCEL_ERROR", e.getMessage());
@@ -184,7 +144,7 @@ public class NotificationLimiterModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void cancelAllNotifications(Promise promise) {
         try {
-            notificationManager.cancelAll();
+            NotificationPostQueue.getInstance().cancelAll(reactContext);
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("CANCEL_ALL_ERROR", e.getMessage());
@@ -3,7 +3,6 @@ package io.lokal.notifications;
 import com.facebook.react.bridge.*;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import android.app.NotificationManager;
-import android.app.NotificationChannel;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
@@ -11,26 +10,20 @@ import android.content.SharedPreferences;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Build;
-import android.os.Bundle;
 import android.os.LocaleList;
-import android.service.notification.StatusBarNotification;
 import java.util.Locale;
-import androidx.annotation.RequiresApi;
 import androidx.core.app.NotificationCompat;
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.CustomTarget;
-import com.bumptech.glide.request.transition.Transition;
 import android.graphics.Bitmap;
-import android.graphics.drawable.Drawable;
-import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import org.json.JSONArray;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NotificationManagerModule extends ReactContextBaseJavaModule {
     private static final String MODULE_NAME = "NotificationManagerModule";
     private ReactApplicationContext reactContext;
     private NotificationManager notificationManager;
+    private final NotificationImageCache imageCache = NotificationImageCache.getInstance();
 
     // Constants matching Android implementation
     private static final String NOTIFICATION_TIME_EXTRA = "notification_time_extra";
@@ -46,6 +39,9 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
         super(reactContext);
         this.reactContext = reactContext;
         this.notificationManager = (NotificationManager) reactContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        NotificationTimeFormatter.init(reactContext);
+        // A new React instance has no listeners until JS registers its callbacks again
+        PendingClickEventQueue.getInstance(reactContext).resetConsumer();
     }
 
     @Override
@@ -57,7 +53,7 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
     public void initialize(Promise promise) {
         try {
             // Use consolidated method from NotificationUtil
-            NotificationUtil.createNotificationChannels(reactContext);
+            NotificationChannelRegistry.ensureChannels(reactContext);
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("INIT_ERROR", e.getMessage());
@@ -66,148 +62,294 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void createNotification(ReadableMap config, Promise promise) {
-        try {
-            int id = config.getInt("id");
-            String title = config.getString("title");
-            String body = config.getString("body");
-            String categoryId = config.getString("categoryId");
-            String categoryName = config.getString("categoryName");
-            String uri = config.getString("uri");
-            String action = config.getString("action");
-            String tag = config.getString("tag");
-            String channel = config.hasKey("channel") ? config.getString("channel") : "Recommendation";
-            int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
-            boolean isGroupingNeeded = config.hasKey("isGroupingNeeded") ? config.getBoolean("isGroupingNeeded") : false;
-            int groupID = config.hasKey("groupID") ? config.getInt("groupID") : 0;
-            String notifType = config.hasKey("notifType") ? config.getString("notifType") : "";
-            boolean isPersonalized = config.hasKey("isPersonalized") ? config.getBoolean("isPersonalized") : false;
-
-            createNotificationInternal(id, title, body, categoryId, categoryName, uri, action, tag, 
-                                     channel, importance, isGroupingNeeded, groupID, notifType, isPersonalized);
+        executeBuild(promise, "CREATE_ERROR", () -> {
+            try {
+                int id = config.getInt("id");
+                String title = config.getString("title");
+                String body = config.getString("body");
+                String categoryId = config.getString("categoryId");
+                String categoryName = config.getString("categoryName");
+                String uri = config.getString("uri");
+                String action = config.getString("action");
+                String tag = config.getString("tag");
+                String channel = config.hasKey("channel") ? config.getString("channel") : "Recommendation";
+                int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
+                boolean isGroupingNeeded = config.hasKey("isGroupingNeeded") ? config.getBoolean("isGroupingNeeded") : false;
+                int groupID = config.hasKey("groupID") ? config.getInt("groupID") : 0;
+                String notifType = config.hasKey("notifType") ? config.getString("notifType") : "";
+                boolean isPersonalized = config.hasKey("isPersonalized") ? config.getBoolean("isPersonalized") : false;
+
+                createNotificationInternal(id, title, body, categoryId, categoryName, uri, action, tag, 
+                                         channel, importance, isGroupingNeeded, groupID, notifType, isPersonalized);
             
-            promise.resolve(true);
-        } catch (Exception e) {
-            promise.reject("CREATE_ERROR", e.getMessage());
-        }
+                promise.resolve(true);
+            } catch (Exception e) {
+                promise.reject("CREATE_ERROR", e.getMessage());
+            }
+        });
     }
 
     @ReactMethod
     public void createNotificationWithImage(ReadableMap config, Promise promise) {
-        try {
-            String imageUrl = config.getString("imageUrl");
-            loadImageAndCreateNotification(config, imageUrl, promise);
-        } catch (Exception e) {
-            promise.reject("CREATE_IMAGE_ERROR", e.getMessage());
-        }
+        executeBuild(promise, "CREATE_IMAGE_ERROR", () -> {
+            try {
+                Bitmap handleBitmap = decodeImageHandle(config, "imageHandle");
+                if (handleBitmap != null) {
+                    createNotificationWithBitmap(config, handleBitmap);
+                    promise.resolve(true);
+                    return;
+                }
+
+                String imageUrl = config.getString("imageUrl");
+                loadImageAndCreateNotification(config, imageUrl, promise);
+            } catch (Exception e) {
+                promise.reject("CREATE_IMAGE_ERROR", e.getMessage());
+            }
+        });
     }
 
     @ReactMethod
     public void createNotificationWithCustomLayout(ReadableMap config, Promise promise) {
+        executeBuild(promise, "CREATE_CUSTOM_ERROR", () -> {
+            try {
+                int id = config.getInt("id");
+                String title = config.getString("title");
+                String body = config.getString("body");
+                String categoryId = config.getString("categoryId");
+                String categoryName = config.getString("categoryName");
+                String uri = config.getString("uri");
+                String action = config.getString("action");
+                String channel = config.hasKey("channel") ? config.getString("channel") : "Recommendation";
+                int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
+                int notificationVersion = config.hasKey("notificationVersion") ? config.getInt("notificationVersion") : 1;
+                String imageUrl = config.hasKey("imageUrl") ? config.getString("imageUrl") : null;
+
+                boolean isGroupingNeeded = config.hasKey("isGroupingNeeded") ? config.getBoolean("isGroupingNeeded") : false;
+                int groupID = config.hasKey("groupID") ? config.getInt("groupID") : 0;
+                String notifType = config.hasKey("notifType") ? config.getString("notifType") : "";
+                boolean isPersonalized = config.hasKey("isPersonalized") ? config.getBoolean("isPersonalized") : false;
+
+                // Create UserPreferences from config using consolidated method
+                UserPreferences userPreferences = NotificationUtil.createUserPreferencesFromConfig(reactContext, config);
+
+                Bitmap handleBitmap = decodeImageHandle(config, "imageHandle");
+                if (handleBitmap != null) {
+                    // Image already stored natively by NotificationReCreatorModule
+                    createCustomNotificationWithBitmap(config, handleBitmap, decodeImageHandle(config, "blurImageHandle"));
+                    promise.resolve(true);
+                } else if (imageUrl != null && !imageUrl.isEmpty()) {
+                    // Load image and create notification with custom layout
+                    loadImageAndCreateCustomNotification(config, imageUrl, promise);
+                } else {
+                    // Create notification without image using custom layout with all native functionality
+                    NotificationUtil.createNotificationWithCustomLayout(
+                        reactContext,
+                        id,
+                        null, // no bitmap
+                        null, // no blur bitmap
+                        title,
+                        body,
+                        categoryId,
+                        categoryName,
+                        uri,
+                        action,
+                        channel,
+                        importance,
+                        notificationVersion,
+                        isGroupingNeeded,
+                        groupID,
+                        notifType,
+                        isPersonalized,
+                        userPreferences
+                    );
+                    promise.resolve(true);
+                }
+            } catch (Exception e) {
+                promise.reject("CREATE_CUSTOM_ERROR", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Create many custom layout notifications in one bridge call. Every image is requested
+     * through the shared image loader up front, so loads run concurrently and share Glide
+     * requests with other posts, and each notification is built on the build executor once its
+     * image is ready or has failed. No executor thread waits on a load. Resolves with one
+     * {id, success, error} entry per config once the last notification is done.
+     */
+    @ReactMethod
+    public void createNotificationsBatch(ReadableArray configs, Promise promise) {
         try {
-            int id = config.getInt("id");
-            String title = config.getString("title");
-            String body = config.getString("body");
-            String categoryId = config.getString("categoryId");
-            String categoryName = config.getString("categoryName");
-            String uri = config.getString("uri");
-            String action = config.getString("action");
-            String channel = config.hasKey("channel") ? config.getString("channel") : "Recommendation";
-            int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
-            int notificationVersion = config.hasKey("notificationVersion") ? config.getInt("notificationVersion") : 1;
-            String imageUrl = config.hasKey("imageUrl") ? config.getString("imageUrl") : null;
-
-            boolean isGroupingNeeded = config.hasKey("isGroupingNeeded") ? config.getBoolean("isGroupingNeeded") : false;
-            int groupID = config.hasKey("groupID") ? config.getInt("groupID") : 0;
-            String notifType = config.hasKey("notifType") ? config.getString("notifType") : "";
-            boolean isPersonalized = config.hasKey("isPersonalized") ? config.getBoolean("isPersonalized") : false;
-
-            // Create UserPreferences from config using consolidated method
-            UserPreferences userPreferences = NotificationUtil.createUserPreferencesFromConfig(config);
-
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                // Load image and create notification with custom layout
-                loadImageAndCreateCustomNotification(config, imageUrl, promise);
-            } else {
-                // Create notification without image using custom layout with all native functionality
-                NotificationUtil.createNotificationWithCustomLayout(
-                    reactContext,
-                    id,
-                    null, // no bitmap
-                    null, // no blur bitmap
-                    title,
-                    body,
-                    categoryId,
-                    categoryName,
-                    uri,
-                    action,
-                    channel,
-                    importance,
-                    notificationVersion,
-                    isGroupingNeeded,
-                    groupID,
-                    notifType,
-                    isPersonalized,
-                    userPreferences
-                );
-                promise.resolve(true);
+            int count = configs.size();
+            if (count == 0) {
+                promise.resolve(Arguments.createArray());
+                return;
+            }
+            BatchResults results = new BatchResults(count, promise);
+            for (int i = 0; i < count; i++) {
+                ReadableMap config = configs.getMap(i);
+                String imageUrl = config.hasKey("imageUrl") ? config.getString("imageUrl") : null;
+                boolean hasHandle = config.hasKey("imageHandle") && !config.isNull("imageHandle");
+                if (!hasHandle && imageUrl != null && !imageUrl.isEmpty()) {
+                    loadBatchImage(config, imageUrl, results, i);
+                } else {
+                    // Stored images are decoded on the build thread, off the bridge
+                    buildBatchItem(config, results, i, true, null);
+                }
             }
         } catch (Exception e) {
-            promise.reject("CREATE_CUSTOM_ERROR", e.getMessage());
+            promise.reject("CREATE_BATCH_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Per config outcome of a batch, resolving the promise when the last one is in
+     */
+    private static final class BatchResults {
+        private final WritableMap[] entries;
+        private final AtomicInteger remaining;
+        private final Promise promise;
+
+        BatchResults(int count, Promise promise) {
+            this.entries = new WritableMap[count];
+            this.remaining = new AtomicInteger(count);
+            this.promise = promise;
+        }
+
+        void finish(int index, int id, boolean success, String error) {
+            WritableMap entry = Arguments.createMap();
+            entry.putInt("id", id);
+            entry.putBoolean("success", success);
+            if (error != null) {
+                entry.putString("error", error);
+            }
+            synchronized (entries) {
+                entries[index] = entry;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                WritableArray array = Arguments.createArray();
+                synchronized (entries) {
+                    for (WritableMap result : entries) {
+                        array.pushMap(result);
+                    }
+                }
+                promise.resolve(array);
+            }
+        }
+    }
+
+    private void loadBatchImage(ReadableMap config, String imageUrl, BatchResults results, int index) {
+        int[] slotSize = NotificationImageCache.getThumbnailSlotSize(reactContext);
+        long timeoutMs = config.hasKey("imageTimeoutMs")
+            ? (long) config.getDouble("imageTimeoutMs")
+            : NotificationImageLoader.DEFAULT_TIMEOUT_MS;
+
+        NotificationImageLoader.getInstance().load(reactContext, config.getInt("id"), imageUrl, slotSize[0], slotSize[1],
+            timeoutMs, new NotificationImageLoader.Callback() {
+                @Override
+                public void onLoaded(Bitmap bitmap) {
+                    buildBatchItem(config, results, index, false, bitmap);
+                }
+
+                @Override
+                public void onFailed() {
+                    android.util.Log.w(MODULE_NAME, "Batch image load failed, posting without image: " + imageUrl);
+                    buildBatchItem(config, results, index, false, null);
+                }
+
+                @Override
+                public void onSuperseded() {
+                    results.finish(index, config.getInt("id"), false, "Superseded by a newer notification");
+                }
+            });
+    }
+
+    private void buildBatchItem(ReadableMap config, BatchResults results, int index, boolean decodeHandles, Bitmap bitmap) {
+        int id = config.hasKey("id") ? config.getInt("id") : 0;
+        try {
+            NotificationBuildExecutor.getInstance().execute(() -> {
+                try {
+                    if (decodeHandles) {
+                        Bitmap handleBitmap = decodeImageHandle(config, "imageHandle");
+                        Bitmap blurBitmap = handleBitmap != null ? decodeImageHandle(config, "blurImageHandle") : null;
+                        createCustomNotificationWithBitmap(config, handleBitmap, blurBitmap);
+                    } else {
+                        createCustomNotificationWithBitmap(config, bitmap, null);
+                    }
+                    results.finish(index, id, true, null);
+                } catch (Exception e) {
+                    results.finish(index, id, false, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            results.finish(index, id, false, "Notification build queue is full");
         }
     }
 
     @ReactMethod
     public void cancelNotification(int notificationId, Promise promise) {
         try {
-            notificationManager.cancel(notificationId);
+            NotificationImageLoader.getInstance().cancel(notificationId);
+            NotificationPostQueue.getInstance().cancel(reactContext, notificationId);
+            ScoreNotificationUpdater.getInstance().forget(notificationId);
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("CANCEL_ERROR", e.getMessage());
         }
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.M)
+    /**
+     * Apply the changed fields of a live score (CricketNotificationData keys) to the score
+     * notification with this id. Unchanged updates are skipped and fast ones are throttled.
+     */
+    @ReactMethod
+    public void updateScoreNotification(int id, ReadableMap diff, Promise promise) {
+        try {
+            ScoreNotificationUpdater.Result updateResult = ScoreNotificationUpdater.getInstance().update(reactContext, id, diff);
+            WritableMap result = Arguments.createMap();
+            result.putInt("changedFields", updateResult.changedFields);
+            result.putBoolean("posted", updateResult.posted);
+            result.putBoolean("deferred", updateResult.deferred);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("SCORE_UPDATE_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Minimum time between two posts of the same score notification
+     */
+    @ReactMethod
+    public void setScoreUpdateInterval(double intervalMs, Promise promise) {
+        try {
+            ScoreNotificationUpdater.getInstance().setMinInterval((long) intervalMs);
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("SCORE_UPDATE_ERROR", e.getMessage());
+        }
+    }
+
     @ReactMethod
     public void getActiveNotifications(Promise promise) {
         try {
-            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
-                promise.resolve(Arguments.createArray());
-                return;
-            }
+            promise.resolve(ActiveNotificationSnapshot.get(reactContext).toNotificationArray());
+        } catch (Exception e) {
+            promise.reject("GET_ACTIVE_ERROR", e.getMessage());
+        }
+    }
 
-            StatusBarNotification[] notifications = notificationManager.getActiveNotifications();
-            WritableArray result = Arguments.createArray();
-            
-            for (StatusBarNotification notification : notifications) {
-                WritableMap notifMap = Arguments.createMap();
-                notifMap.putInt("id", notification.getId());
-                notifMap.putString("packageName", notification.getPackageName());
-                
-                WritableMap notificationData = Arguments.createMap();
-                WritableMap extras = Arguments.createMap();
-                
-                Bundle notificationExtras = notification.getNotification().extras;
-                if (notificationExtras != null) {
-                    for (String key : notificationExtras.keySet()) {
-                        Object value = notificationExtras.get(key);
-                        if (value instanceof String) {
-                            extras.putString(key, (String) value);
-                        } else if (value instanceof Integer) {
-                            extras.putInt(key, (Integer) value);
-                        } else if (value instanceof Long) {
-                            extras.putDouble(key, ((Long) value).doubleValue());
-                        }
-                    }
-                }
-                
-                notificationData.putMap("extras", extras);
-                notificationData.putDouble("when", notification.getNotification().when);
-                notifMap.putMap("notification", notificationData);
-                
-                result.pushMap(notifMap);
+    /**
+     * Active notifications as parallel arrays (ids, times, refreshIds, when) plus one
+     * array per extra key in the projection, instead of a map per notification
+     */
+    @ReactMethod
+    public void getActiveNotificationsCompact(ReadableArray projection, Promise promise) {
+        try {
+            String[] keys = new String[projection != null ? projection.size() : 0];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = projection.getString(i);
             }
-            
-            promise.resolve(result);
+            promise.resolve(ActiveNotificationSnapshot.get(reactContext).toColumns(keys));
         } catch (Exception e) {
             promise.reject("GET_ACTIVE_ERROR", e.getMessage());
         }
@@ -223,6 +365,125 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
         }
     }
 
+    @ReactMethod
+    public void getImageCacheStats(Promise promise) {
+        try {
+            WritableMap stats = Arguments.createMap();
+            stats.putDouble("hits", imageCache.getHitCount());
+            stats.putDouble("softHits", imageCache.getSoftHitCount());
+            stats.putDouble("misses", imageCache.getMissCount());
+            stats.putDouble("evictions", imageCache.getEvictionCount());
+            stats.putInt("entries", imageCache.getEntryCount());
+            stats.putInt("sizeBytes", imageCache.getSizeBytes());
+            stats.putInt("maxSizeBytes", imageCache.getMaxSizeBytes());
+            NotificationImageLoader imageLoader = NotificationImageLoader.getInstance();
+            stats.putDouble("coalescedLoads", imageLoader.getCoalescedCount());
+            stats.putDouble("supersededLoads", imageLoader.getSupersededCount());
+            stats.putDouble("timedOutLoads", imageLoader.getTimeoutCount());
+            promise.resolve(stats);
+        } catch (Exception e) {
+            promise.reject("IMAGE_CACHE_STATS_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getImageSizingStats(Promise promise) {
+        try {
+            WritableMap stats = Arguments.createMap();
+            stats.putDouble("notificationsSized", NotificationImageSizer.getNotificationsSized());
+            stats.putDouble("totalBytesSaved", NotificationImageSizer.getTotalBytesSaved());
+            stats.putDouble("lastBytesSaved", NotificationImageSizer.getLastBytesSaved());
+            promise.resolve(stats);
+        } catch (Exception e) {
+            promise.reject("IMAGE_SIZING_STATS_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Average and last duration of each custom layout build stage, in milliseconds
+     */
+    @ReactMethod
+    public void getBuildTimings(Promise promise) {
+        try {
+            WritableMap timings = Arguments.createMap();
+            timings.putDouble("builds", NotificationBuildTimings.getBuildCount());
+            for (int stage = 0; stage < NotificationBuildTimings.getStageCount(); stage++) {
+                WritableMap stageTimings = Arguments.createMap();
+                stageTimings.putDouble("averageMs", NotificationBuildTimings.getAverageMs(stage));
+                stageTimings.putDouble("lastMs", NotificationBuildTimings.getLastMs(stage));
+                timings.putMap(NotificationBuildTimings.getStageName(stage), stageTimings);
+            }
+            promise.resolve(timings);
+        } catch (Exception e) {
+            promise.reject("BUILD_TIMINGS_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Resize the notification build executor. Builds beyond queueDepth are rejected.
+     */
+    @ReactMethod
+    public void configureBuildExecutor(int poolSize, int queueDepth, Promise promise) {
+        try {
+            NotificationBuildExecutor.getInstance().configure(poolSize, queueDepth);
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("BUILD_EXECUTOR_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Remove and return the notification clicks queued while JS was not ready. Called when
+     * JS registers its click callback, later clicks are emitted as onNotificationClick.
+     */
+    @ReactMethod
+    public void drainPendingEvents(Promise promise) {
+        try {
+            promise.resolve(PendingClickEventQueue.getInstance(reactContext).drainToConsumer());
+        } catch (Exception e) {
+            promise.reject("DRAIN_EVENTS_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getBuildExecutorStats(Promise promise) {
+        try {
+            NotificationBuildExecutor executor = NotificationBuildExecutor.getInstance();
+            WritableMap stats = Arguments.createMap();
+            stats.putInt("poolSize", executor.getPoolSize());
+            stats.putInt("queueDepth", executor.getQueueDepth());
+            stats.putInt("queued", executor.getQueuedCount());
+            stats.putInt("active", executor.getActiveCount());
+            stats.putDouble("submitted", executor.getSubmittedCount());
+            stats.putDouble("completed", executor.getCompletedCount());
+            stats.putDouble("failed", executor.getFailedCount());
+            stats.putDouble("rejected", executor.getRejectedCount());
+            stats.putDouble("averageQueueWaitMs", executor.getAverageQueueWaitMs());
+            stats.putDouble("maxQueueWaitMs", executor.getMaxQueueWaitMs());
+            stats.putDouble("averageBuildMs", executor.getAverageRunMs());
+            stats.putDouble("maxBuildMs", executor.getMaxRunMs());
+            promise.resolve(stats);
+        } catch (Exception e) {
+            promise.reject("BUILD_EXECUTOR_STATS_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getPostQueueStats(Promise promise) {
+        try {
+            NotificationPostQueue postQueue = NotificationPostQueue.getInstance();
+            WritableMap stats = Arguments.createMap();
+            stats.putDouble("posted", postQueue.getPostedCount());
+            stats.putDouble("coalesced", postQueue.getCoalescedCount());
+            stats.putDouble("dropped", postQueue.getDroppedCount());
+            stats.putDouble("delayed", postQueue.getDelayedCount());
+            stats.putInt("pending", postQueue.getPendingCount());
+            promise.resolve(stats);
+        } catch (Exception e) {
+            promise.reject("POST_QUEUE_STATS_ERROR", e.getMessage());
+        }
+    }
+
     @ReactMethod
     public void getStoredIntArray(String key, Promise promise) {
         try {
@@ -263,46 +524,66 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
     public void setAppLocale(String languageCode, Promise promise) {
         try {
             setLocale(languageCode);
+            NotificationTimeFormatter.invalidate();
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("SET_LOCALE_ERROR", e.getMessage());
         }
     }
 
+    /**
+     * Choose between 24-hour ("14:05") and 12-hour ("2:05 PM") header times
+     */
     @ReactMethod
-    public void createQuizNotification(ReadableMap config, Promise promise) {
+    public void setUse24HourTime(boolean enabled, Promise promise) {
         try {
-            int id = config.getInt("id");
-            String imageUrl = config.hasKey("imageUrl") ? config.getString("imageUrl") : "";
-            String title = config.getString("title");
-            String body = config.getString("body");
-            String categoryId = config.hasKey("categoryId") ? config.getString("categoryId") : "";
-            String categoryName = config.hasKey("categoryName") ? config.getString("categoryName") : "";
-            String uri = config.hasKey("uri") ? config.getString("uri") : "";
-            String action = config.hasKey("action") ? config.getString("action") : "";
-            String tag = config.hasKey("tag") ? config.getString("tag") : "";
-            String channel = config.hasKey("channel") ? config.getString("channel") : "default";
-            int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
-
-            if (imageUrl != null && !imageUrl.isEmpty()) {
-                loadImageAndCreateQuizNotification(config, imageUrl, promise);
-            } else {
-                createQuizNotificationInternal(id, null, null, title, body, categoryId, categoryName,
-                    uri, action, tag, channel, importance);
-                promise.resolve(true);
-            }
+            NotificationTimeFormatter.setUse24HourFormat(reactContext, enabled);
+            promise.resolve(true);
         } catch (Exception e) {
-            promise.reject("CREATE_QUIZ_ERROR", e.getMessage());
+            promise.reject("TIME_FORMAT_ERROR", e.getMessage());
         }
     }
 
+    @ReactMethod
+    public void createQuizNotification(ReadableMap config, Promise promise) {
+        executeBuild(promise, "CREATE_QUIZ_ERROR", () -> {
+            try {
+                int id = config.getInt("id");
+                String imageUrl = config.hasKey("imageUrl") ? config.getString("imageUrl") : "";
+                String title = config.getString("title");
+                String body = config.getString("body");
+                String categoryId = config.hasKey("categoryId") ? config.getString("categoryId") : "";
+                String categoryName = config.hasKey("categoryName") ? config.getString("categoryName") : "";
+                String uri = config.hasKey("uri") ? config.getString("uri") : "";
+                String action = config.hasKey("action") ? config.getString("action") : "";
+                String tag = config.hasKey("tag") ? config.getString("tag") : "";
+                String channel = config.hasKey("channel") ? config.getString("channel") : "default";
+                int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
+
+                Bitmap handleBitmap = decodeImageHandle(config, "imageHandle");
+                if (handleBitmap != null) {
+                    createQuizNotificationWithBitmap(config, handleBitmap);
+                    promise.resolve(true);
+                } else if (imageUrl != null && !imageUrl.isEmpty()) {
+                    loadImageAndCreateQuizNotification(config, imageUrl, promise);
+                } else {
+                    createQuizNotificationInternal(id, null, null, title, body, categoryId, categoryName,
+                        uri, action, tag, channel, importance);
+                    promise.resolve(true);
+                }
+            } catch (Exception e) {
+                promise.reject("CREATE_QUIZ_ERROR", e.getMessage());
+            }
+        });
+    }
+
     // Private helper methods
     private void createNotificationInternal(int id, String title, String body, String categoryId, 
                                           String categoryName, String uri, String action, String tag,
                                           String channel, int importance, boolean isGroupingNeeded, 
                                           int groupID, String notifType, boolean isPersonalized) {
         
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext, channel)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext, NotificationChannelRegistry.channelId(reactContext, channel))
             .setContentTitle(title)
             .setContentText(body)
             .setSmallIcon(getNotificationIcon())
@@ -332,10 +613,11 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
         // Handle grouping if needed (exact Android logic)
         if (isGroupingNeeded && groupID != 0) {
             builder.setGroup(String.valueOf(groupID));
+            builder.setDeleteIntent(NotificationDismissReceiver.createChildDeleteIntent(reactContext, id));
             
             // Create group summary if needed
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                createGroupSummaryNotification(groupID, channel, categoryName);
+                createGroupSummaryNotification(groupID, id, title, channel, categoryName);
             }
         }
 
@@ -344,70 +626,76 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
             builder.setCategory(NotificationCompat.CATEGORY_MESSAGE);
         }
 
-        notificationManager.notify(id, builder.build());
+        NotificationPostQueue.getInstance().enqueue(reactContext, id, builder.build());
     }
 
     // Removed duplicate methods - now using consolidated methods from NotificationUtil
-    private void createGroupSummaryNotification(int groupID, String channel, String categoryName) {
+    private void createGroupSummaryNotification(int groupID, int id, String title, String channel, String categoryName) {
         // Use consolidated method from NotificationUtil
-        NotificationUtil.createBasicGroupSummaryNotification(reactContext, groupID, channel, categoryName);
+        NotificationUtil.createBasicGroupSummaryNotification(reactContext, groupID, id, title, channel, categoryName);
     }
 
-    private void loadImageAndCreateNotification(ReadableMap config, String imageUrl, Promise promise) {
-        Glide.with(reactContext)
-            .asBitmap()
-            .load(imageUrl)
-            .into(new CustomTarget<Bitmap>() {
-                @Override
-                public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                    try {
-                        createNotificationWithBitmap(config, resource);
-                        promise.resolve(true);
-                    } catch (Exception e) {
-                        promise.reject("CREATE_WITH_BITMAP_ERROR", e.getMessage());
-                    }
-                }
+    private interface BitmapBuild {
+        void build(Bitmap bitmap);
+    }
+
+    /**
+     * Load a notification image through the shared loader and build on the build executor.
+     * Loads of the same URL are shared, a newer load for the same id resolves this promise
+     * with false, and a failed or timed out load builds with a null bitmap.
+     */
+    private void loadImageAndBuild(ReadableMap config, String imageUrl, Promise promise, String errorCode, BitmapBuild build) {
+        int id = config.getInt("id");
+        int[] slotSize = NotificationImageCache.getThumbnailSlotSize(reactContext);
+        long timeoutMs = config.hasKey("imageTimeoutMs")
+            ? (long) config.getDouble("imageTimeoutMs")
+            : NotificationImageLoader.DEFAULT_TIMEOUT_MS;
 
+        NotificationImageLoader.getInstance().load(reactContext, id, imageUrl, slotSize[0], slotSize[1], timeoutMs,
+            new NotificationImageLoader.Callback() {
                 @Override
-                public void onLoadCleared(@Nullable Drawable placeholder) {
-                    // Fallback to notification without image
-                    try {
-                        createNotification(config, promise);
-                    } catch (Exception e) {
-                        promise.reject("FALLBACK_ERROR", e.getMessage());
-                    }
+                public void onLoaded(Bitmap bitmap) {
+                    buildWithBitmap(promise, errorCode, build, bitmap);
                 }
-            });
-    }
 
-    private void loadImageAndCreateCustomNotification(ReadableMap config, String imageUrl, Promise promise) {
-        Glide.with(reactContext)
-            .asBitmap()
-            .load(imageUrl)
-            .into(new CustomTarget<Bitmap>() {
                 @Override
-                public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                    try {
-                        createCustomNotificationWithBitmap(config, resource);
-                        promise.resolve(true);
-                    } catch (Exception e) {
-                        promise.reject("CREATE_CUSTOM_WITH_BITMAP_ERROR", e.getMessage());
-                    }
+                public void onFailed() {
+                    buildWithBitmap(promise, errorCode, build, null);
                 }
 
                 @Override
-                public void onLoadCleared(@Nullable Drawable placeholder) {
-                    // Fallback to custom notification without image
-                    try {
-                        createNotificationWithCustomLayout(config, promise);
-                    } catch (Exception e) {
-                        promise.reject("CUSTOM_FALLBACK_ERROR", e.getMessage());
-                    }
+                public void onSuperseded() {
+                    promise.resolve(false);
                 }
             });
     }
 
+    private void buildWithBitmap(Promise promise, String errorCode, BitmapBuild build, Bitmap bitmap) {
+        executeBuild(promise, errorCode, () -> {
+            try {
+                build.build(bitmap);
+                promise.resolve(true);
+            } catch (Exception e) {
+                promise.reject(errorCode, e.getMessage());
+            }
+        });
+    }
+
+    private void loadImageAndCreateNotification(ReadableMap config, String imageUrl, Promise promise) {
+        // Without an image the same layout is posted text-only
+        loadImageAndBuild(config, imageUrl, promise, "CREATE_WITH_BITMAP_ERROR", bitmap -> createNotificationWithBitmap(config, bitmap));
+    }
+
+    private void loadImageAndCreateCustomNotification(ReadableMap config, String imageUrl, Promise promise) {
+        // Without an image the same layout is posted text-only
+        loadImageAndBuild(config, imageUrl, promise, "CREATE_CUSTOM_WITH_BITMAP_ERROR", bitmap -> createCustomNotificationWithBitmap(config, bitmap));
+    }
+
     private void createCustomNotificationWithBitmap(ReadableMap config, Bitmap bitmap) {
+        createCustomNotificationWithBitmap(config, bitmap, null);
+    }
+
+    private void createCustomNotificationWithBitmap(ReadableMap config, Bitmap bitmap, Bitmap blurBitmap) {
         int id = config.getInt("id");
         String title = config.getString("title");
         String body = config.getString("body");
@@ -424,14 +712,14 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
         boolean isPersonalized = config.hasKey("isPersonalized") ? config.getBoolean("isPersonalized") : false;
 
         // Create UserPreferences from config using consolidated method
-        UserPreferences userPreferences = NotificationUtil.createUserPreferencesFromConfig(config);
+        UserPreferences userPreferences = NotificationUtil.createUserPreferencesFromConfig(reactContext, config);
 
         // Use enhanced NotificationUtil with all native functionality
         NotificationUtil.createNotificationWithCustomLayout(
             reactContext,
             id,
             bitmap,
-            null, // blurrBitmap - can be enhanced later
+            blurBitmap,
             title,
             body,
             categoryId,
@@ -467,7 +755,7 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
         int notificationVersion = config.hasKey("notificationVersion") ? config.getInt("notificationVersion") : 1;
 
         // Create UserPreferences from config using consolidated method
-        UserPreferences userPreferences = NotificationUtil.createUserPreferencesFromConfig(config);
+        UserPreferences userPreferences = NotificationUtil.createUserPreferencesFromConfig(reactContext, config);
 
         // Use the enhanced NotificationUtil with all native functionality
         NotificationUtil.createNotificationWithCustomLayout(
@@ -492,6 +780,28 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
         );
     }
 
+    /**
+     * Run a build on the notification build executor, rejecting the promise when its queue is full.
+     * The task resolves or rejects the promise itself.
+     */
+    private void executeBuild(Promise promise, String errorCode, Runnable task) {
+        try {
+            NotificationBuildExecutor.getInstance().execute(task);
+        } catch (RejectedExecutionException e) {
+            promise.reject(errorCode, "Notification build queue is full");
+        }
+    }
+
+    /**
+     * Decode an image stored by NotificationReCreatorModule's *AsHandle loaders, if the config has one
+     */
+    private Bitmap decodeImageHandle(ReadableMap config, String key) {
+        if (!config.hasKey(key) || config.isNull(key)) {
+            return null;
+        }
+        return NotificationImageStore.decode(reactContext, config.getString(key));
+    }
+
     // Removed duplicate methods - now using consolidated methods from NotificationUtil
     private int getNotificationIcon() {
         // Use consolidated method from NotificationUtil
@@ -499,53 +809,36 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
     }
 
     private void loadImageAndCreateQuizNotification(ReadableMap config, String imageUrl, Promise promise) {
-        Glide.with(reactContext)
-            .asBitmap()
-            .load(imageUrl)
-            .into(new CustomTarget<Bitmap>() {
-                @Override
-                public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
-                    try {
-                        int id = config.getInt("id");
-                        String title = config.getString("title");
-                        String body = config.getString("body");
-                        String categoryId = config.hasKey("categoryId") ? config.getString("categoryId") : "";
-                        String categoryName = config.hasKey("categoryName") ? config.getString("categoryName") : "";
-                        String uri = config.hasKey("uri") ? config.getString("uri") : "";
-                        String action = config.hasKey("action") ? config.getString("action") : "";
-                        String tag = config.hasKey("tag") ? config.getString("tag") : "";
-                        String channel = config.hasKey("channel") ? config.getString("channel") : "default";
-                        int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
-
-                        // Create blurred bitmap (simple implementation)
-                        Bitmap blurBitmap = createBlurredBitmap(resource);
-                        
-                        createQuizNotificationInternal(id, resource, blurBitmap, title, body, categoryId, categoryName,
-                            uri, action, tag, channel, importance);
-                        promise.resolve(true);
-                    } catch (Exception e) {
-                        promise.reject("CREATE_QUIZ_WITH_BITMAP_ERROR", e.getMessage());
-                    }
-                }
+        // Without an image the same layout is posted text-only
+        loadImageAndBuild(config, imageUrl, promise, "CREATE_QUIZ_WITH_BITMAP_ERROR", bitmap -> createQuizNotificationWithBitmap(config, bitmap));
+    }
 
-                @Override
-                public void onLoadCleared(@Nullable Drawable placeholder) {
-                    // Fallback to quiz notification without image
-                    try {
-                        createQuizNotification(config, promise);
-                    } catch (Exception e) {
-                        promise.reject("QUIZ_FALLBACK_ERROR", e.getMessage());
-                    }
-                }
-            });
+    private void createQuizNotificationWithBitmap(ReadableMap config, Bitmap bitmap) {
+        int id = config.getInt("id");
+        String title = config.getString("title");
+        String body = config.getString("body");
+        String categoryId = config.hasKey("categoryId") ? config.getString("categoryId") : "";
+        String categoryName = config.hasKey("categoryName") ? config.getString("categoryName") : "";
+        String uri = config.hasKey("uri") ? config.getString("uri") : "";
+        String action = config.hasKey("action") ? config.getString("action") : "";
+        String tag = config.hasKey("tag") ? config.getString("tag") : "";
+        String channel = config.hasKey("channel") ? config.getString("channel") : "default";
+        int importance = config.hasKey("importance") ? config.getInt("importance") : NotificationCompat.PRIORITY_HIGH;
+
+        // Tiny blurred copy for blurr_view, the layout upscales it
+        Bitmap blurBitmap = NotificationBlur.blur(bitmap);
+
+        createQuizNotificationInternal(id, bitmap, blurBitmap, title, body, categoryId, categoryName,
+            uri, action, tag, channel, importance);
     }
 
     private void createQuizNotificationInternal(int id, Bitmap bitmap, Bitmap blurBitmap,
                                               String title, String body, String categoryId, String categoryName,
                                               String uri, String action, String tag, String channel, int importance) {
         
-        // Create notification channels
-        NotificationUtil.createNotificationChannels(reactContext);
+        // Strip markup once for both views
+        title = HtmlText.strip(title);
+        body = HtmlText.strip(body);
 
         // Create intent
         Intent intent = new Intent(reactContext, NotificationClickReceiver.class);
@@ -565,36 +858,43 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
             PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
         );
 
-        // Get layout resource IDs for quiz layouts
-        int smallLayoutId = getLayoutId("notification_small_quiz");
-        int largeLayoutId = getLayoutId("notification_large_quiz");
+        // Quiz layouts and the views they contain come from the static layout table
+        NotificationLayouts.LayoutSet layouts = NotificationLayouts.QUIZ;
+
+        // Size images to the quiz layout slots before binding
+        NotificationImageSizer.SizedImages images = NotificationImageSizer.prepare(
+            reactContext, layouts, bitmap, blurBitmap);
 
         // Create collapsed view (small)
-        android.widget.RemoteViews collapsedView = new android.widget.RemoteViews(reactContext.getPackageName(), smallLayoutId);
-        collapsedView.setTextViewText(getViewId("title"), parseHtmlTags(title));
-        collapsedView.setTextViewText(getViewId("body"), parseHtmlTags(body));
-        if (bitmap != null) {
-            collapsedView.setImageViewBitmap(getViewId("icon"), bitmap);
+        android.widget.RemoteViews collapsedView = new android.widget.RemoteViews(reactContext.getPackageName(), layouts.collapsed.layoutId);
+        collapsedView.setTextViewText(R.id.title, title);
+        collapsedView.setTextViewText(R.id.body, body);
+        if (images.collapsedIcon != null) {
+            collapsedView.setImageViewBitmap(R.id.icon, images.collapsedIcon);
         }
-        if (blurBitmap != null) {
-            collapsedView.setImageViewBitmap(getViewId("blurr_view"), blurBitmap);
+        if (images.blur != null) {
+            collapsedView.setImageViewBitmap(R.id.blurr_view, images.blur);
+        }
+        if (layouts.collapsed.has(NotificationLayouts.VIEW_HEADER)) {
+            bindNotificationHeader(collapsedView, categoryName);
         }
-        bindNotificationHeader(collapsedView, categoryName);
 
         // Create expanded view (large)
-        android.widget.RemoteViews expandedView = new android.widget.RemoteViews(reactContext.getPackageName(), largeLayoutId);
-        expandedView.setTextViewText(getViewId("title"), parseHtmlTags(title));
-        expandedView.setTextViewText(getViewId("body"), parseHtmlTags(body));
-        if (bitmap != null) {
-            expandedView.setImageViewBitmap(getViewId("thumbnail"), bitmap);
+        android.widget.RemoteViews expandedView = new android.widget.RemoteViews(reactContext.getPackageName(), layouts.expanded.layoutId);
+        expandedView.setTextViewText(R.id.title, title);
+        expandedView.setTextViewText(R.id.body, body);
+        if (images.thumbnail != null) {
+            expandedView.setImageViewBitmap(R.id.thumbnail, images.thumbnail);
+        }
+        if (images.blur != null) {
+            expandedView.setImageViewBitmap(R.id.blurr_view, images.blur);
         }
-        if (blurBitmap != null) {
-            expandedView.setImageViewBitmap(getViewId("blurr_view"), blurBitmap);
+        if (layouts.expanded.has(NotificationLayouts.VIEW_HEADER)) {
+            bindNotificationHeader(expandedView, categoryName);
         }
-        bindNotificationHeader(expandedView, categoryName);
 
         // Build notification
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext, reactContext.getPackageName() + "_" + channel)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext, NotificationChannelRegistry.channelId(reactContext, channel))
             .setContentIntent(pendingIntent)
             .setSmallIcon(getNotificationIcon())
             .setColor(reactContext.getResources().getColor(android.R.color.holo_blue_bright))
@@ -614,55 +914,18 @@ public class NotificationManagerModule extends ReactContextBaseJavaModule {
         notification.extras.putLong(NOTIFICATION_TIME_EXTRA, System.currentTimeMillis());
         notification.extras.putInt(NOTIFICATION_REFRESH_ID_EXTRA, id);
 
-        notificationManager.notify(id, notification);
-    }
-
-    // Helper methods - using reflection to access private methods from NotificationUtil
-    private int getLayoutId(String layoutName) {
-        int resourceId = reactContext.getResources().getIdentifier(
-            layoutName, "layout", reactContext.getPackageName()
-        );
-        return resourceId != 0 ? resourceId : android.R.layout.simple_list_item_1;
-    }
-
-    private int getViewId(String viewName) {
-        int resourceId = reactContext.getResources().getIdentifier(
-            viewName, "id", reactContext.getPackageName()
-        );
-        return resourceId != 0 ? resourceId : android.R.id.text1;
+        NotificationPostQueue.getInstance().enqueue(reactContext, id, notification);
     }
 
     private void bindNotificationHeader(android.widget.RemoteViews remoteViews, String categoryName) {
         if (categoryName != null && !categoryName.isEmpty()) {
-            remoteViews.setViewVisibility(getViewId("category_container"), android.view.View.VISIBLE);
-            remoteViews.setTextViewText(getViewId("category_name"), categoryName);
+            remoteViews.setViewVisibility(R.id.category_container, android.view.View.VISIBLE);
+            remoteViews.setTextViewText(R.id.category_name, categoryName);
         } else {
-            remoteViews.setViewVisibility(getViewId("category_container"), android.view.View.GONE);
+            remoteViews.setViewVisibility(R.id.category_container, android.view.View.GONE);
         }
         
-        remoteViews.setTextViewText(getViewId("time_stamp"), getCurrentTime());
-    }
-
-    private String parseHtmlTags(String text) {
-        if (text == null) return "";
-        // Simple HTML tag removal - NotificationUtil has more sophisticated parsing
-        return text.replaceAll("<[^>]*>", "").trim();
-    }
-
-    private String getCurrentTime() {
-        java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("HH:mm", java.util.Locale.getDefault());
-        return sdf.format(new java.util.Date());
-    }
-
-    private Bitmap createBlurredBitmap(Bitmap bitmap) {
-        try {
-            // Simple blur implementation - in production you'd use RenderScript or similar
-            Bitmap blurred = bitmap.copy(bitmap.getConfig(), true);
-            // Apply blur effect here if needed
-            return blurred;
-        } catch (Exception e) {
-            return null;
-        }
+        remoteViews.setTextViewText(R.id.time_stamp, NotificationTimeFormatter.now());
     }
 
     private void sendEventToJS(String eventName, WritableMap params) {
@@ -0,0 +1,250 @@
+package io.lokal.notifications;
+
+import android.app.Notification;
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import androidx.core.app.NotificationManagerCompat;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single posting path for every notification of the package. Android silently drops
+ * notifications enqueued faster than about five per second per package, so posts go
+ * through a token bucket on a dedicated thread. A post for an id that is still queued
+ * replaces the queued one instead of adding another enqueue.
+ *
+ * The lock only guards the queue itself. Binder calls and the group registry callbacks run
+ * after it is released, so callers enqueueing or reading stats never wait on the system.
+ */
+public class NotificationPostQueue {
+
+    private static final String TAG = "NotificationPostQueue";
+
+    // Stay just under the system enqueue rate
+    private static final int BUCKET_CAPACITY = 5;
+    private static final long REFILL_INTERVAL_MS = 220;
+
+    // Oldest queued posts are dropped beyond this depth
+    private static final int MAX_PENDING = 50;
+
+    private static NotificationPostQueue instance;
+
+    private final Handler handler;
+    private final Map<Integer, Notification> pending = new LinkedHashMap<>();
+    // Ids taken off the queue by the running drain, and those cancelled before it finished
+    private final Set<Integer> inFlight = new HashSet<>();
+    private final Set<Integer> cancelledInFlight = new HashSet<>();
+    private final Runnable drainRunnable = this::drain;
+
+    private Context appContext;
+    private double tokens = BUCKET_CAPACITY;
+    private long lastRefillTime = SystemClock.elapsedRealtime();
+    private boolean drainScheduled;
+    // A post subject to the notification limit was queued since the last trim
+    private boolean limitCheckRequested;
+
+    private long postedCount;
+    private long coalescedCount;
+    private long droppedCount;
+    private long delayedCount;
+
+    public static synchronized NotificationPostQueue getInstance() {
+        if (instance == null) {
+            instance = new NotificationPostQueue();
+        }
+        return instance;
+    }
+
+    private NotificationPostQueue() {
+        HandlerThread thread = new HandlerThread(TAG);
+        thread.start();
+        this.handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Queue a notification for posting. Posts right away while the bucket has tokens,
+     * otherwise waits for the next token.
+     */
+    public synchronized void enqueue(Context context, int id, Notification notification) {
+        appContext = context.getApplicationContext();
+        refill();
+
+        if (pending.containsKey(id)) {
+            // Remove first so the replacement keeps the newest position
+            pending.remove(id);
+            coalescedCount++;
+        } else if (pending.size() >= MAX_PENDING) {
+            Iterator<Integer> iterator = pending.keySet().iterator();
+            int droppedId = iterator.next();
+            iterator.remove();
+            droppedCount++;
+            android.util.Log.w(TAG, "Queue full, dropping notification " + droppedId);
+        }
+
+        if (tokens < 1 || !pending.isEmpty()) {
+            delayedCount++;
+        }
+        pending.put(id, notification);
+        scheduleDrain(0);
+    }
+
+    /**
+     * Queue a post that counts against the configured notification limit. The limit is
+     * enforced once after the batch it is drained in, not after every post.
+     */
+    public synchronized void enqueueLimited(Context context, int id, Notification notification) {
+        limitCheckRequested = true;
+        enqueue(context, id, notification);
+    }
+
+    /**
+     * Cancel a notification, including a post for it that is still queued
+     */
+    public void cancel(Context context, int id) {
+        synchronized (this) {
+            pending.remove(id);
+            if (inFlight.contains(id)) {
+                // The drain may post it after this cancel, it cancels it again when done
+                cancelledInFlight.add(id);
+            }
+        }
+        NotificationManagerCompat.from(context).cancel(id);
+        NotificationGroupRegistry.getInstance(context).onCancelled(id);
+        ActiveNotificationSnapshot.invalidate();
+    }
+
+    public void cancelAll(Context context) {
+        synchronized (this) {
+            pending.clear();
+            cancelledInFlight.addAll(inFlight);
+        }
+        NotificationManagerCompat.from(context).cancelAll();
+        NotificationGroupRegistry.getInstance(context).onAllCancelled();
+        ActiveNotificationSnapshot.invalidate();
+    }
+
+    /**
+     * Take as many posts as there are tokens under the lock, then post them without it
+     */
+    private void drain() {
+        Context context;
+        int[] ids;
+        Notification[] notifications;
+        int batchSize = 0;
+        synchronized (this) {
+            drainScheduled = false;
+            refill();
+
+            context = appContext;
+            int size = Math.min((int) tokens, pending.size());
+            ids = new int[size];
+            notifications = new Notification[size];
+            Iterator<Map.Entry<Integer, Notification>> iterator = pending.entrySet().iterator();
+            while (batchSize < size) {
+                Map.Entry<Integer, Notification> entry = iterator.next();
+                iterator.remove();
+                tokens -= 1;
+                ids[batchSize] = entry.getKey();
+                notifications[batchSize] = entry.getValue();
+                inFlight.add(entry.getKey());
+                batchSize++;
+            }
+
+            if (!pending.isEmpty()) {
+                scheduleDrain(REFILL_INTERVAL_MS);
+            }
+        }
+        if (batchSize == 0) {
+            return;
+        }
+
+        NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
+        NotificationGroupRegistry registry = NotificationGroupRegistry.getInstance(context);
+        int posted = 0;
+        for (int i = 0; i < batchSize; i++) {
+            try {
+                notificationManager.notify(ids[i], notifications[i]);
+                registry.onPosted(ids[i], notifications[i]);
+                posted++;
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Failed to post notification " + ids[i], e);
+            }
+        }
+        ActiveNotificationSnapshot.invalidate();
+
+        Integer[] cancelled;
+        boolean checkLimit;
+        synchronized (this) {
+            postedCount += posted;
+            inFlight.clear();
+            cancelled = cancelledInFlight.toArray(new Integer[0]);
+            cancelledInFlight.clear();
+            checkLimit = limitCheckRequested;
+            limitCheckRequested = false;
+        }
+        for (int id : cancelled) {
+            notificationManager.cancel(id);
+            registry.onCancelled(id);
+        }
+        if (cancelled.length > 0) {
+            ActiveNotificationSnapshot.invalidate();
+        }
+
+        if (checkLimit) {
+            try {
+                NotificationLimiter.enforceConfiguredLimit(context);
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "Failed to enforce notification limit", e);
+            }
+        }
+    }
+
+    private void scheduleDrain(long delayMs) {
+        if (!drainScheduled) {
+            drainScheduled = true;
+            handler.postDelayed(drainRunnable, delayMs);
+        }
+    }
+
+    private void refill() {
+        long now = SystemClock.elapsedRealtime();
+        tokens = Math.min(BUCKET_CAPACITY, tokens + (double) (now - lastRefillTime) / REFILL_INTERVAL_MS);
+        lastRefillTime = now;
+    }
+
+    public synchronized long getPostedCount() {
+        return postedCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long getDelayedCount() {
+        return delayedCount;
+    }
+
+    /**
+     * Copy of the posts still waiting for a token, keyed by notification id
+     */
+    public synchronized Map<Integer, Notification> getPendingNotifications() {
+        return new LinkedHashMap<>(pending);
+    }
+
+    public synchronized boolean isPending(int id) {
+        return pending.containsKey(id);
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,104 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Immutable snapshot of the notification settings in "NotificationPrefs".
+ * Loaded once per process and replaced by a change listener whenever one of the keys is
+ * written, so building a notification never reads SharedPreferences.
+ */
+public final class NotificationPreferences {
+
+    private static final String PREFS_NAME = "NotificationPrefs";
+
+    static final String KEY_SELECTED_LANGUAGE = "selected_language";
+    static final String KEY_PREFERRED_LOCALE = "preferred_locale";
+    static final String KEY_GROUPING_ACTIVE = "is_notification_grouping_active";
+    static final String KEY_KEEP_AT_TOP = "notification_keep_at_top";
+    static final String KEY_SILENT_PUSH = "is_silent_push";
+    static final String KEY_NOTIFICATION_LIMIT = "notification_limit";
+
+    private static volatile NotificationPreferences current;
+    // SharedPreferences only keeps a weak reference to its listeners
+    private static SharedPreferences.OnSharedPreferenceChangeListener listener;
+
+    // Incremented on every reload, lets callers tell snapshots apart cheaply
+    public final int version;
+    public final String selectedLanguage;
+    public final String preferredLocale;
+    public final boolean groupingActive;
+    public final boolean keepAtTop;
+    public final boolean silentPush;
+    // Remote config limit last passed from JS, 0 when unset
+    public final int notificationLimit;
+
+    private NotificationPreferences(int version, SharedPreferences prefs) {
+        this.version = version;
+        this.selectedLanguage = prefs.getString(KEY_SELECTED_LANGUAGE, "en");
+        this.preferredLocale = prefs.getString(KEY_PREFERRED_LOCALE, "none");
+        this.groupingActive = prefs.getBoolean(KEY_GROUPING_ACTIVE, true);
+        this.keepAtTop = prefs.getBoolean(KEY_KEEP_AT_TOP, false);
+        this.silentPush = prefs.getBoolean(KEY_SILENT_PUSH, false);
+        this.notificationLimit = prefs.getInt(KEY_NOTIFICATION_LIMIT, 0);
+    }
+
+    /**
+     * Current snapshot, loading it and registering the change listener on first use
+     */
+    public static NotificationPreferences get(Context context) {
+        NotificationPreferences snapshot = current;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (NotificationPreferences.class) {
+            if (current == null) {
+                SharedPreferences prefs = context.getApplicationContext()
+                    .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+                current = new NotificationPreferences(1, prefs);
+                listener = (changedPrefs, key) -> {
+                    // A null key means the file was cleared
+                    if (key == null || isTrackedKey(key)) {
+                        reload(changedPrefs);
+                    }
+                };
+                prefs.registerOnSharedPreferenceChangeListener(listener);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Editor for settings written natively; call refresh once applied
+     */
+    static SharedPreferences.Editor edit(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit();
+    }
+
+    /**
+     * Reload the snapshot right away instead of waiting for the change listener, which runs
+     * later on the main thread
+     */
+    static void refresh(Context context) {
+        get(context);
+        reload(context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+    }
+
+    private static synchronized void reload(SharedPreferences prefs) {
+        current = new NotificationPreferences(current.version + 1, prefs);
+    }
+
+    private static boolean isTrackedKey(String key) {
+        switch (key) {
+            case KEY_SELECTED_LANGUAGE:
+            case KEY_PREFERRED_LOCALE:
+            case KEY_GROUPING_ACTIVE:
+            case KEY_KEEP_AT_TOP:
+            case KEY_SILENT_PUSH:
+            case KEY_NOTIFICATION_LIMIT:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.lokal.notifications;
 
 import com.facebook.react.bridge.*;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
 import com.bumptech.glide.request.target.CustomTarget;
 import com.bumptech.glide.request.transition.Transition;
 import android.graphics.Bitmap;
@@ -11,6 +12,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import jp.wasabeef.glide.transformations.BlurTransformation;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 
 public class NotificationReCreatorModule extends ReactContextBaseJavaModule {
     private static final String MODULE_NAME = "NotificationReCreatorModule";
@@ -92,6 +94,47 @@ public class NotificationReCreatorModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Handle based variants of the base64 loaders. The image is encoded once into the
+     * cache directory and only an opaque handle and path cross the bridge; notification
+     * builders accept the handle as "imageHandle" / "blurImageHandle".
+     */
+    @ReactMethod
+    public void loadImageAsHandle(String imageUrl, Promise promise) {
+        try {
+            loadIntoStore(
+                Glide.with(reactContext).asBitmap().load(imageUrl),
+                NotificationImageStore.createHandle(imageUrl, "original"),
+                promise);
+        } catch (Exception e) {
+            promise.reject("LOAD_IMAGE_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void loadBlurredImageAsHandle(String imageUrl, int radius, int sampling, Promise promise) {
+        try {
+            loadIntoStore(
+                Glide.with(reactContext).asBitmap().load(imageUrl).transform(new BlurTransformation(radius, sampling)),
+                NotificationImageStore.createHandle(imageUrl, "blur_" + radius + "_" + sampling),
+                promise);
+        } catch (Exception e) {
+            promise.reject("LOAD_BLUR_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void loadImageWithSizeAsHandle(String imageUrl, int width, int height, Promise promise) {
+        try {
+            loadIntoStore(
+                Glide.with(reactContext).asBitmap().load(imageUrl).override(width, height),
+                NotificationImageStore.createHandle(imageUrl, "size_" + width + "x" + height),
+                promise);
+        } catch (Exception e) {
+            promise.reject("LOAD_IMAGE_SIZE_ERROR", e.getMessage());
+        }
+    }
+
     @ReactMethod
     public void preloadImage(String imageUrl, Promise promise) {
         try {
@@ -111,10 +154,12 @@ public class NotificationReCreatorModule extends ReactContextBaseJavaModule {
         try {
             // Clear Glide cache
             Glide.get(reactContext).clearMemory();
+            NotificationImageCache.getInstance().clear();
             
             // Clear disk cache on background thread
             new Thread(() -> {
                 Glide.get(reactContext).clearDiskCache();
+                NotificationImageStore.clear(reactContext);
             }).start();
             
             promise.resolve(true);
@@ -195,6 +240,52 @@ public class NotificationReCreatorModule extends ReactContextBaseJavaModule {
     }
 
     // Private helper methods
+    private void loadIntoStore(RequestBuilder<Bitmap> request, String handle, Promise promise) {
+        // Already encoded by an earlier request, skip the load entirely
+        File existing = NotificationImageStore.resolve(reactContext, handle);
+        if (existing != null) {
+            int[] size = NotificationImageStore.readSize(existing);
+            promise.resolve(createHandleResult(handle, existing, size[0], size[1]));
+            return;
+        }
+
+        request.into(new CustomTarget<Bitmap>() {
+            @Override
+            public void onResourceReady(@NonNull Bitmap resource, @Nullable Transition<? super Bitmap> transition) {
+                NotificationImageStore.store(reactContext, handle, resource, new NotificationImageStore.Callback() {
+                    @Override
+                    public void onStored(String storedHandle, File file, int width, int height) {
+                        promise.resolve(createHandleResult(storedHandle, file, width, height));
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        promise.reject("STORE_IMAGE_ERROR", e.getMessage());
+                    }
+                });
+            }
+
+            @Override
+            public void onLoadCleared(@Nullable Drawable placeholder) {
+                promise.reject("IMAGE_LOAD_ERROR", "Failed to load image");
+            }
+
+            @Override
+            public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                promise.reject("IMAGE_LOAD_FAILED", "Image loading failed");
+            }
+        });
+    }
+
+    private WritableMap createHandleResult(String handle, File file, int width, int height) {
+        WritableMap result = Arguments.createMap();
+        result.putString("handle", handle);
+        result.putString("path", file.getAbsolutePath());
+        result.putInt("width", width);
+        result.putInt("height", height);
+        return result;
+    }
+
     private String bitmapToBase64(Bitmap bitmap) {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         bitmap.compress(Bitmap.CompressFormat.PNG, 100, byteArrayOutputStream);
@@ -1,13 +1,12 @@
 package io.lokal.notifications;
 
 import com.facebook.react.bridge.*;
+import android.app.Notification;
 import android.app.NotificationManager;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.os.Build;
 import android.os.Bundle;
-import android.service.notification.StatusBarNotification;
-import androidx.annotation.RequiresApi;
 import androidx.core.app.NotificationCompat;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -33,51 +32,10 @@ public class NotificationRefresherModule extends ReactContextBaseJavaModule {
         return MODULE_NAME;
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.M)
     @ReactMethod
     public void getActiveNotifications(Promise promise) {
         try {
-            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
-                promise.resolve(Arguments.createArray());
-                return;
-            }
-
-            StatusBarNotification[] notifications = notificationManager.getActiveNotifications();
-            WritableArray result = Arguments.createArray();
-            
-            for (StatusBarNotification notification : notifications) {
-                WritableMap notifMap = Arguments.createMap();
-                notifMap.putInt("id", notification.getId());
-                notifMap.putString("packageName", notification.getPackageName());
-                
-                WritableMap notificationData = Arguments.createMap();
-                WritableMap extras = Arguments.createMap();
-                
-                Bundle notificationExtras = notification.getNotification().extras;
-                if (notificationExtras != null) {
-                    // Extract all extras for refresh logic
-                    for (String key : notificationExtras.keySet()) {
-                        Object value = notificationExtras.get(key);
-                        if (value instanceof String) {
-                            extras.putString(key, (String) value);
-                        } else if (value instanceof Integer) {
-                            extras.putInt(key, (Integer) value);
-                        } else if (value instanceof Long) {
-                            extras.putDouble(key, ((Long) value).doubleValue());
-                        } else if (value instanceof Boolean) {
-                            extras.putBoolean(key, (Boolean) value);
-                        }
-                    }
-                }
-                
-                notificationData.putMap("extras", extras);
-                notificationData.putDouble("when", notification.getNotification().when);
-                notifMap.putMap("notification", notificationData);
-                
-                result.pushMap(notifMap);
-            }
-            
-            promise.resolve(result);
+            promise.resolve(ActiveNotificationSnapshot.get(reactContext).toNotificationArray());
         } catch (Exception e) {
             promise.reject("GET_ACTIVE_ERROR", e.getMessage());
         }
@@ -104,23 +62,67 @@ public class NotificationRefresherModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Re-post every active notification oldest first with a fresh notification_time_extra,
+     * so they return to the top in their original order. The original Notification objects
+     * are re-posted, custom RemoteViews included, through the rate-limited post queue.
+     */
+    @ReactMethod
+    public void refreshAll(Promise promise) {
+        try {
+            ActiveNotificationSnapshot snapshot = ActiveNotificationSnapshot.get(reactContext);
+            int count = snapshot.size();
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(snapshot.times[a], snapshot.times[b]));
+
+            long currentTime = System.currentTimeMillis();
+            int refreshedCount = 0;
+            for (int index : order) {
+                // Notifications without a refresh id (e.g. group summaries) keep their place
+                if (snapshot.refreshIds[index] == 0) {
+                    continue;
+                }
+                // Strictly increasing times keep the original order under the limiter's sort
+                Notification refreshed = createRefreshedNotification(
+                    snapshot.getNotification(index), currentTime + refreshedCount);
+                NotificationPostQueue.getInstance().enqueue(reactContext, snapshot.ids[index], refreshed);
+                refreshedCount++;
+            }
+
+            promise.resolve(refreshedCount);
+        } catch (Exception e) {
+            promise.reject("REFRESH_ERROR", e.getMessage());
+        }
+    }
+
     @ReactMethod
     public void notifyNotification(int id, ReadableMap notification, Promise promise) {
         try {
             // For Xiaomi devices - simple timestamp update and re-post
             // This matches the exact Android logic for Xiaomi refresh
-            
+            long currentTime = System.currentTimeMillis();
+
+            // Re-post the notification that is still showing so its custom views survive
+            ActiveNotificationSnapshot snapshot = ActiveNotificationSnapshot.get(reactContext);
+            for (int i = 0; i < snapshot.size(); i++) {
+                if (snapshot.ids[i] == id) {
+                    NotificationPostQueue.getInstance().enqueue(reactContext, id,
+                        createRefreshedNotification(snapshot.getNotification(i), currentTime));
+                    promise.resolve(true);
+                    return;
+                }
+            }
+
             // Create a basic notification with updated timestamp
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext, "Recommendation")
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(reactContext,
+                    NotificationChannelRegistry.channelId(reactContext, NotificationChannelRegistry.RECOMMENDATION))
                 .setSmallIcon(getNotificationIcon())
                 .setAutoCancel(true)
                 .setOnlyAlertOnce(true); // Silent refresh
 
-            // Update timestamp for ordering
-            long currentTime = System.currentTimeMillis();
-            builder.getExtras().putLong(NOTIFICATION_TIME_EXTRA, currentTime);
-            builder.getExtras().putInt(NOTIFICATION_REFRESH_ID_EXTRA, id);
-
             // Extract notification data from ReadableMap
             ReadableMap notifData = notification.hasKey("notification") ? notification.getMap("notification") : null;
             if (notifData != null && notifData.hasKey("extras")) {
@@ -137,12 +139,7 @@ public class NotificationRefresherModule extends ReactContextBaseJavaModule {
                                 builder.getExtras().putString(key, extras.getString(key));
                                 break;
                             case Number:
-                                double value = extras.getDouble(key);
-                                if (key.equals(NOTIFICATION_TIME_EXTRA)) {
-                                    builder.getExtras().putLong(key, (long) value);
-                                } else {
-                                    builder.getExtras().putInt(key, (int) value);
-                                }
+                                putNumber(builder.getExtras(), key, extras.getDouble(key));
                                 break;
                             case Boolean:
                                 builder.getExtras().putBoolean(key, extras.getBoolean(key));
@@ -152,18 +149,50 @@ public class NotificationRefresherModule extends ReactContextBaseJavaModule {
                 }
             }
 
+            // Update timestamp for ordering, after the copy so the old time doesn't win
+            builder.getExtras().putLong(NOTIFICATION_TIME_EXTRA, currentTime);
+            builder.getExtras().putInt(NOTIFICATION_REFRESH_ID_EXTRA, id);
+
             // Re-post notification with updated timestamp
-            notificationManager.notify(id, builder.build());
+            NotificationPostQueue.getInstance().enqueue(reactContext, id, builder.build());
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("NOTIFY_ERROR", e.getMessage());
         }
     }
 
+    /**
+     * Copy of an active notification with a new time that re-posts silently
+     */
+    private static Notification createRefreshedNotification(Notification original, long time) {
+        Notification refreshed = original.clone();
+        refreshed.when = time;
+        refreshed.flags |= Notification.FLAG_ONLY_ALERT_ONCE;
+        if (refreshed.extras == null) {
+            refreshed.extras = new Bundle();
+        }
+        refreshed.extras.putLong(NOTIFICATION_TIME_EXTRA, time);
+        return refreshed;
+    }
+
+    /**
+     * JS numbers arrive as doubles; store them back as int, long or double depending on the
+     * value so timestamps and ids don't get truncated to int
+     */
+    private static void putNumber(Bundle extras, String key, double value) {
+        if (value != Math.rint(value) || Double.isInfinite(value)) {
+            extras.putDouble(key, value);
+        } else if (key.equals(NOTIFICATION_TIME_EXTRA) || value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            extras.putLong(key, (long) value);
+        } else {
+            extras.putInt(key, (int) value);
+        }
+    }
+
     @ReactMethod
     public void cancelNotification(int id, Promise promise) {
         try {
-            notificationManager.cancel(id);
+            NotificationPostQueue.getInstance().cancel(reactContext, id);
             promise.resolve(true);
         } catch (Exception e) {
             promise.reject("CANCEL_ERROR", e.getMessage());
@@ -0,0 +1,87 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Time shown in the notification header, formatted at most once per minute.
+ * The formatter is rebuilt only when the locale or the 12/24-hour setting changes.
+ */
+public final class NotificationTimeFormatter {
+
+    private static final String PREFS_NAME = "NotificationPrefs";
+    private static final String KEY_USE_24_HOUR = "notification_time_24_hour";
+
+    private static final long MINUTE_MS = 60 * 1000L;
+
+    private static boolean loaded;
+    private static boolean use24Hour = true;
+
+    private static SimpleDateFormat format;
+    private static Locale formatLocale;
+    private static long cachedMinute = -1;
+    private static String cachedText;
+
+    private NotificationTimeFormatter() {
+    }
+
+    /**
+     * Read the persisted 12/24-hour setting, only the first call does any work
+     */
+    public static synchronized void init(Context context) {
+        if (loaded) {
+            return;
+        }
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        use24Hour = prefs.getBoolean(KEY_USE_24_HOUR, true);
+        loaded = true;
+    }
+
+    /**
+     * Persist the 12/24-hour setting and drop the cached formatter
+     */
+    public static synchronized void setUse24HourFormat(Context context, boolean enabled) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putBoolean(KEY_USE_24_HOUR, enabled).apply();
+        use24Hour = enabled;
+        loaded = true;
+        invalidate();
+    }
+
+    /**
+     * Drop the cached formatter, called after the app locale changes
+     */
+    public static synchronized void invalidate() {
+        format = null;
+        formatLocale = null;
+        cachedMinute = -1;
+        cachedText = null;
+    }
+
+    /**
+     * Current time as shown in the header, e.g. "14:05" or "2:05 PM"
+     */
+    public static String now() {
+        return format(System.currentTimeMillis());
+    }
+
+    public static synchronized String format(long timeMs) {
+        // Locale.setDefault may also be called outside setAppLocale
+        Locale locale = Locale.getDefault();
+        if (format == null || !locale.equals(formatLocale)) {
+            format = new SimpleDateFormat(use24Hour ? "HH:mm" : "h:mm a", locale);
+            formatLocale = locale;
+            cachedMinute = -1;
+        }
+
+        long minute = timeMs / MINUTE_MS;
+        if (minute != cachedMinute || cachedText == null) {
+            cachedText = format.format(new Date(timeMs));
+            cachedMinute = minute;
+        }
+        return cachedText;
+    }
+}
@@ -1,17 +1,13 @@
 package io.lokal.notifications;
 
-import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.service.notification.StatusBarNotification;
-import android.text.TextUtils;
 import android.util.TypedValue;
 import android.view.View;
 import android.widget.RemoteViews;
@@ -19,11 +15,8 @@ import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import androidx.core.app.Person;
 import com.facebook.react.bridge.ReadableMap;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.UUID;
 
 /**
@@ -45,9 +38,6 @@ public class NotificationUtil {
     private static final String HINDI_LANGUAGE = "hi";
     
     // Notification preferences
-    private static final String NOTIFICATION_KEEP_AT_TOP = "notification_keep_at_top";
-    private static final String IS_NOTIFICATION_GROUPING_ACTIVE = "is_notification_grouping_active";
-    private static final String MATRIMONY_GROUPED_NOTIF_ID = "matrimony_grouped_notif_id_";
     
     public static void createNotificationWithCustomLayout(Context context,
                                                          int id,
@@ -68,8 +58,8 @@ public class NotificationUtil {
                                                          boolean isPersonalized,
                                                          UserPreferences userPreferences) {
         
-        // Apply title concatenation logic for versions 4, 5, 6 (matching native)
-        title = setTitleForNotificationVersion4And5(title, body, notificationVersion, userPreferences);
+        long buildStart = System.nanoTime();
+        NotificationTimeFormatter.init(context);
         
         // Determine if share button should be shown (matching native logic)
         boolean showShareButton = shouldShowShareButton(action, uri);
@@ -84,33 +74,60 @@ public class NotificationUtil {
         PendingIntent sharePendingIntent = PendingIntent.getActivity(context, -id, shareIntent,
             PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0));
         
-        // Get layout IDs and style based on notification version
-        int[] layoutIds = getLayoutIds(notificationVersion);
-        int notificationLarge = layoutIds[0];
-        int notificationSmall = layoutIds[1];
-        int notificationHeadsUp = layoutIds[2];
-        NotificationCompat.Style style = getNotificationStyle(notificationVersion);
+        // Text, language and header time are computed once and shared by every view
+        String plainTitle = HtmlText.strip(title);
+        String plainBody = HtmlText.strip(body);
+        // Apply title concatenation logic for versions 4, 5, 6 (matching native)
+        plainTitle = setTitleForNotificationVersion4And5(plainTitle, plainBody, notificationVersion, userPreferences);
+        String languageLocale = userPreferences.getSelectedLanguageLocale(false);
+        boolean isTamilOrMalayalam = languageLocale.equals(TAMIL_LANGUAGE) || languageLocale.equals(MALAYALAM_LANGUAGE);
+        String timeStamp = NotificationTimeFormatter.now();
+        long textDone = System.nanoTime();
+        
+        // Resolve the layouts and their binding plans for this notification version
+        NotificationLayouts.LayoutSet layouts = NotificationLayouts.forVersion(notificationVersion);
+
+        // Size images to the slots of these layouts so each RemoteViews parcels a small copy
+        NotificationImageSizer.SizedImages images = NotificationImageSizer.prepare(context, layouts, bitmap, blurrBitmap);
+        PreparedNotificationContent content = new PreparedNotificationContent(
+            plainTitle, plainBody, categoryName, timeStamp, isTamilOrMalayalam, images);
+        title = content.title;
+        body = content.body;
+        long imagesDone = System.nanoTime();
+        
+        NotificationCompat.Style style = layouts.decorated ? new NotificationCompat.DecoratedCustomViewStyle() : null;
         
-        // Create RemoteViews for different states
-        RemoteViews notificationLayoutCollapsed = new RemoteViews(context.getPackageName(), notificationSmall);
-        RemoteViews notificationLayoutExpanded = new RemoteViews(context.getPackageName(), notificationLarge);
-        RemoteViews notificationLayoutHeadsUp = new RemoteViews(context.getPackageName(), notificationHeadsUp);
+        // Text-only variant of the collapsed layout when there is no image to show
+        NotificationLayouts.BindingPlan collapsedPlan = layouts.collapsed;
+        NotificationLayouts.BindingPlan headsUpPlan = layouts.headsUp;
+        NotificationLayouts.BindingPlan withoutImage = NotificationLayouts.withoutImage(notificationVersion);
+        if (withoutImage != null && !content.hasImage()) {
+            collapsedPlan = withoutImage;
+            headsUpPlan = withoutImage;
+        }
         
         // Set content for collapsed view with language-specific handling
-        setupCollapsedView(notificationLayoutCollapsed, title, body, bitmap, blurrBitmap, 
-                          categoryName, notificationVersion, userPreferences);
+        RemoteViews notificationLayoutCollapsed = new RemoteViews(context.getPackageName(), collapsedPlan.layoutId);
+        setupCollapsedView(notificationLayoutCollapsed, collapsedPlan, content, content.images.collapsedIcon);
         
         // Set content for expanded view with share/footer logic and language handling
-        setupExpandedView(notificationLayoutExpanded, title, body, bitmap, blurrBitmap, 
-                         categoryName, showShareButton, sharePendingIntent, notificationVersion, userPreferences);
-        
-        // Set content for heads-up view
-        setupHeadsUpView(notificationLayoutHeadsUp, title, body, bitmap, blurrBitmap, 
-                        categoryName, notificationVersion, userPreferences);
+        RemoteViews notificationLayoutExpanded = new RemoteViews(context.getPackageName(), layouts.expanded.layoutId);
+        setupExpandedView(notificationLayoutExpanded, layouts.expanded, content, showShareButton, sharePendingIntent);
+        
+        // Heads-up view: versions whose heads-up layout and icon match the collapsed one reuse
+        // the bound collapsed view instead of binding the same actions again
+        RemoteViews notificationLayoutHeadsUp;
+        if (headsUpPlan == collapsedPlan && content.images.headsUpIcon == content.images.collapsedIcon) {
+            notificationLayoutHeadsUp = notificationLayoutCollapsed;
+        } else {
+            notificationLayoutHeadsUp = new RemoteViews(context.getPackageName(), headsUpPlan.layoutId);
+            setupCollapsedView(notificationLayoutHeadsUp, headsUpPlan, content, content.images.headsUpIcon);
+        }
+        long bindDone = System.nanoTime();
         
         // Create notification builder with proper sound configuration
         Uri soundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, context.getPackageName() + "_" + channel)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannelRegistry.channelId(context, channel))
             .setContentTitle(title)
             .setContentIntent(pendingIntent)
             .setSmallIcon(getNotificationIcon(context))
@@ -132,7 +149,7 @@ public class NotificationUtil {
         builder.addExtras(extras);
         
         // Handle notification grouping (matching native logic)
-        handleNotificationGrouping(context, builder, id, isGroupingNeeded, groupID);
+        handleNotificationGrouping(context, builder, id, isGroupingNeeded, groupID, userPreferences);
         
         // Set priority based on Android version
         if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.N_MR1) {
@@ -143,15 +160,17 @@ public class NotificationUtil {
         if (importance >= NotificationCompat.PRIORITY_HIGH) {
             handleHighPriorityNotification(context, builder, id, title, body, channel, 
                                           pendingIntent, notificationLayoutCollapsed, 
-                                          notificationLayoutHeadsUp, notificationLayoutExpanded, importance);
+                                          notificationLayoutHeadsUp, notificationLayoutExpanded, importance,
+                                          userPreferences);
         } else {
             // Standard notification posting
             postNotification(id, builder.build(), context);
         }
+        NotificationBuildTimings.record(buildStart, textDone, imagesDone, bindDone, System.nanoTime());
         
         // Handle group summary if needed
         if (isGroupingNeeded && Build.VERSION.SDK_INT > Build.VERSION_CODES.M && groupID != 0) {
-            handleGroupSummaryNotification(context, groupID, channel, categoryName, title, body, id);
+            handleGroupSummaryNotification(context, groupID, channel, categoryName, title, id);
         }
     }
     
@@ -179,133 +198,7 @@ public class NotificationUtil {
         return intent;
     }
     
-    private static int[] getLayoutIds(int notificationVersion) {
-        // Return [large, small, headsUp] layout IDs based on version
-        switch (notificationVersion) {
-            case 1:
-                return new int[]{
-                    getLayoutId("notification_large_v1"),
-                    getLayoutId("notification_small_v1"),
-                    getLayoutId("notification_headsup_v1")
-                };
-            case 2:
-                return new int[]{
-                    getLayoutId("notification_large_v2"),
-                    getLayoutId("notification_small_v2"),
-                    getLayoutId("notification_small_v2")
-                };
-            case 3:
-                return new int[]{
-                    getLayoutId("notification_large_v3"),
-                    getLayoutId("notification_small_v3"),
-                    getLayoutId("notification_small_v3")
-                };
-            case 4:
-                return new int[]{
-                    getLayoutId("notification_large_v4"),
-                    getLayoutId("notification_small_v4"),
-                    getLayoutId("notification_headsup_v4")
-                };
-            case 5:
-                return new int[]{
-                    getLayoutId("notification_large_v5"),
-                    getLayoutId("notification_small_v5"),
-                    getLayoutId("notification_small_v5")
-                };
-            case 6:
-                return new int[]{
-                    getLayoutId("notification_large_v7"),
-                    getLayoutId("notification_small_v7"),
-                    getLayoutId("notification_small_v7")
-                };
-            default:
-                return new int[]{
-                    getLayoutId("notification_large"),
-                    getLayoutId("notification_small"),
-                    getLayoutId("notification_headsup")
-                };
-        }
-    }
-    
-    private static int getLayoutId(String layoutName) {
-        // This is a placeholder - in actual implementation, you'd use proper resource IDs
-        // For now, we'll use the v1 layouts as default
-        switch (layoutName) {
-            case "notification_large_v1":
-                return io.lokal.notifications.R.layout.notification_large_v1;
-            case "notification_small_v1":
-                return io.lokal.notifications.R.layout.notification_small_v1;
-            case "notification_headsup_v1":
-                return io.lokal.notifications.R.layout.notification_headsup_v1;
-            // Add other cases as needed
-            default:
-                return io.lokal.notifications.R.layout.notification_large_v1;
-        }
-    }
-    
-    private static void setupCollapsedView(RemoteViews remoteView, String title, String body, 
-                                         Bitmap bitmap, Bitmap blurrBitmap, String categoryName) {
-        remoteView.setTextViewText(io.lokal.notifications.R.id.title, parseHtmlTags(title));
-        remoteView.setTextViewText(io.lokal.notifications.R.id.body, parseHtmlTags(body));
-        
-        if (bitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.icon, bitmap);
-        }
-        if (blurrBitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.blurr_view, blurrBitmap);
-        }
-        
-        bindNotificationHeader(remoteView, categoryName);
-    }
-    
-    private static void setupExpandedView(RemoteViews remoteView, String title, String body,
-                                        Bitmap bitmap, Bitmap blurrBitmap, String categoryName,
-                                        boolean showShareButton, PendingIntent sharePendingIntent) {
-        remoteView.setTextViewText(io.lokal.notifications.R.id.title, parseHtmlTags(title));
-        remoteView.setTextViewText(io.lokal.notifications.R.id.body, parseHtmlTags(body));
-        
-        if (bitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.thumbnail, bitmap);
-        }
-        if (blurrBitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.blurr_view, blurrBitmap);
-        }
-        
-        // THIS IS THE KEY MISSING FUNCTIONALITY - Control share_container and notification_footer visibility
-        remoteView.setViewVisibility(io.lokal.notifications.R.id.share_container, 
-                                   showShareButton ? View.VISIBLE : View.GONE);
-        remoteView.setViewVisibility(io.lokal.notifications.R.id.notification_footer, 
-                                   showShareButton ? View.GONE : View.VISIBLE);
-        
-        // Set share button click handler
-        if (showShareButton) {
-            remoteView.setOnClickPendingIntent(io.lokal.notifications.R.id.share, sharePendingIntent);
-        }
-        
-        bindNotificationHeader(remoteView, categoryName);
-        
-        // Hide icon for older Android versions
-        if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.M) {
-            remoteView.setViewVisibility(io.lokal.notifications.R.id.icon, View.GONE);
-        }
-    }
-    
-    private static void setupHeadsUpView(RemoteViews remoteView, String title, String body,
-                                       Bitmap bitmap, Bitmap blurrBitmap, String categoryName) {
-        remoteView.setTextViewText(io.lokal.notifications.R.id.title, parseHtmlTags(title));
-        remoteView.setTextViewText(io.lokal.notifications.R.id.body, parseHtmlTags(body));
-        
-        if (bitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.icon, bitmap);
-        }
-        if (blurrBitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.blurr_view, blurrBitmap);
-        }
-        
-        bindNotificationHeader(remoteView, categoryName);
-    }
-    
-    private static void bindNotificationHeader(RemoteViews remoteViews, String categoryName) {
+    private static void bindNotificationHeader(RemoteViews remoteViews, String categoryName, String timeStamp) {
         if (categoryName != null && !categoryName.equals("")) {
             remoteViews.setViewVisibility(io.lokal.notifications.R.id.category_container, View.VISIBLE);
             remoteViews.setTextViewText(io.lokal.notifications.R.id.category_name, categoryName);
@@ -314,7 +207,7 @@ public class NotificationUtil {
         }
         
         // Set current timestamp
-        remoteViews.setTextViewText(io.lokal.notifications.R.id.time_stamp, getCurrentTime());
+        remoteViews.setTextViewText(io.lokal.notifications.R.id.time_stamp, timeStamp);
     }
     
     // Title concatenation logic matching native implementation
@@ -351,176 +244,105 @@ public class NotificationUtil {
         return false;
     }
     
-    // Language-specific handling matching native implementation exactly
-    private static String getSelectedLanguageLocale(Context context, boolean skipPreferredLocale) {
-        SharedPreferences prefs = context.getSharedPreferences("NotificationPrefs", Context.MODE_PRIVATE);
-        
-        if (skipPreferredLocale) {
-            return prefs.getString("selected_language", "en"); // Constants.DEFAULT_LANGUAGE = "en"
-        }
-        
-        String preferredLocale = prefs.getString("preferred_locale", "none"); // Constants.NONE = "none"
-        
-        if (preferredLocale.equalsIgnoreCase("none")) {
-            return prefs.getString("selected_language", "en"); // Constants.DEFAULT_LANGUAGE = "en"
-        } else {
-            return preferredLocale;
-        }
-    }
-    
-    private static NotificationCompat.Style getNotificationStyle(int notificationVersion) {
-        switch (notificationVersion) {
-            case 1:
-            case 2:
-            case 3:
-                return new NotificationCompat.DecoratedCustomViewStyle();
-            case 4:
-                return new NotificationCompat.DecoratedCustomViewStyle();
-            case 5:
-            case 6:
-                return null;
-            default:
-                return new NotificationCompat.DecoratedCustomViewStyle();
-        }
-    }
-    
-    // Enhanced setup methods with language-specific handling using UserPreferences
-    private static void setupCollapsedView(RemoteViews remoteView, String title, String body, 
-                                         Bitmap bitmap, Bitmap blurrBitmap, String categoryName,
-                                         int notificationVersion, UserPreferences userPreferences) {
-        remoteView.setTextViewText(io.lokal.notifications.R.id.title, parseHtmlTags(title));
-        remoteView.setTextViewText(io.lokal.notifications.R.id.body, parseHtmlTags(body));
-        
-        // Language-specific max lines handling using UserPreferences
-        String languageLocale = userPreferences.getSelectedLanguageLocale(false);
-        boolean isTamilOrMalayalam = languageLocale.equals(TAMIL_LANGUAGE) || languageLocale.equals(MALAYALAM_LANGUAGE);
+    // Setup methods driven by the binding plan of each layout and the prepared content
+    // Also used for the heads-up view, which only differs in the icon slot size
+    private static void setupCollapsedView(RemoteViews remoteView, NotificationLayouts.BindingPlan plan,
+                                         PreparedNotificationContent content, Bitmap icon) {
+        bindText(remoteView, plan, content);
         
-        if (notificationVersion == 6) {
-            if (body.isEmpty()) {
-                if (isTamilOrMalayalam) {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 3);
-                } else {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 2);
-                }
+        // Language-specific max lines handling
+        if (plan.adjustsLineCount) {
+            if (content.body.isEmpty()) {
+                remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", content.isTamilOrMalayalam ? 3 : 2);
                 remoteView.setViewVisibility(io.lokal.notifications.R.id.body, View.GONE);
             } else {
-                if (isTamilOrMalayalam) {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 2);
-                    remoteView.setInt(io.lokal.notifications.R.id.body, "setMaxLines", 1);
-                } else {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 1);
-                    remoteView.setInt(io.lokal.notifications.R.id.body, "setMaxLines", 1);
-                }
+                remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", content.isTamilOrMalayalam ? 2 : 1);
+                remoteView.setInt(io.lokal.notifications.R.id.body, "setMaxLines", 1);
             }
         }
         
-        // Dynamic text sizing for version 5
-        if (notificationVersion == 5) {
-            remoteView.setTextViewTextSize(io.lokal.notifications.R.id.title, TypedValue.COMPLEX_UNIT_SP, 16);
-        }
-        
-        if (bitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.icon, bitmap);
+        if (icon != null && plan.has(NotificationLayouts.VIEW_ICON)) {
+            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.icon, icon);
         }
-        if (blurrBitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.blurr_view, blurrBitmap);
-        }
-        
-        bindNotificationHeader(remoteView, categoryName);
+        bindBlur(remoteView, plan, content.images.blur);
+        bindHeader(remoteView, plan, content);
     }
     
-    private static void setupExpandedView(RemoteViews remoteView, String title, String body,
-                                        Bitmap bitmap, Bitmap blurrBitmap, String categoryName,
-                                        boolean showShareButton, PendingIntent sharePendingIntent,
-                                        int notificationVersion, UserPreferences userPreferences) {
-        remoteView.setTextViewText(io.lokal.notifications.R.id.title, parseHtmlTags(title));
-        remoteView.setTextViewText(io.lokal.notifications.R.id.body, parseHtmlTags(body));
-        
-        // Language-specific handling for expanded view using UserPreferences
-        String languageLocale = userPreferences.getSelectedLanguageLocale(false);
-        boolean isTamilOrMalayalam = languageLocale.equals(TAMIL_LANGUAGE) || languageLocale.equals(MALAYALAM_LANGUAGE);
+    private static void setupExpandedView(RemoteViews remoteView, NotificationLayouts.BindingPlan plan,
+                                        PreparedNotificationContent content, boolean showShareButton,
+                                        PendingIntent sharePendingIntent) {
+        bindText(remoteView, plan, content);
         
-        if (notificationVersion == 6) {
-            if (body.isEmpty()) {
-                if (isTamilOrMalayalam) {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 2);
-                } else {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 2);
-                }
+        // Language-specific handling for expanded view
+        if (plan.adjustsLineCount) {
+            if (content.body.isEmpty()) {
+                remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 2);
                 remoteView.setViewVisibility(io.lokal.notifications.R.id.body, View.GONE);
             } else {
-                if (isTamilOrMalayalam) {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 2);
-                    remoteView.setInt(io.lokal.notifications.R.id.body, "setMaxLines", 1);
-                } else {
-                    remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", 1);
-                    remoteView.setInt(io.lokal.notifications.R.id.body, "setMaxLines", 2);
-                }
+                remoteView.setInt(io.lokal.notifications.R.id.title, "setMaxLines", content.isTamilOrMalayalam ? 2 : 1);
+                remoteView.setInt(io.lokal.notifications.R.id.body, "setMaxLines", content.isTamilOrMalayalam ? 1 : 2);
             }
         }
         
-        // Dynamic text sizing for version 5
-        if (notificationVersion == 5) {
-            remoteView.setTextViewTextSize(io.lokal.notifications.R.id.title, TypedValue.COMPLEX_UNIT_SP, 16);
-        }
-        
-        if (bitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.thumbnail, bitmap);
-        }
-        if (blurrBitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.blurr_view, blurrBitmap);
+        if (content.images.thumbnail != null && plan.has(NotificationLayouts.VIEW_THUMBNAIL)) {
+            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.thumbnail, content.images.thumbnail);
         }
+        bindBlur(remoteView, plan, content.images.blur);
         
         // Control share_container and notification_footer visibility
-        remoteView.setViewVisibility(io.lokal.notifications.R.id.share_container, 
-                                   showShareButton ? View.VISIBLE : View.GONE);
-        remoteView.setViewVisibility(io.lokal.notifications.R.id.notification_footer, 
-                                   showShareButton ? View.GONE : View.VISIBLE);
-        
-        // Set share button click handler
-        if (showShareButton) {
-            remoteView.setOnClickPendingIntent(io.lokal.notifications.R.id.share, sharePendingIntent);
+        if (plan.has(NotificationLayouts.VIEW_SHARE)) {
+            remoteView.setViewVisibility(io.lokal.notifications.R.id.share_container, 
+                                       showShareButton ? View.VISIBLE : View.GONE);
+            // Set share button click handler
+            if (showShareButton) {
+                remoteView.setOnClickPendingIntent(io.lokal.notifications.R.id.share, sharePendingIntent);
+            }
+        }
+        if (plan.has(NotificationLayouts.VIEW_FOOTER)) {
+            remoteView.setViewVisibility(io.lokal.notifications.R.id.notification_footer, 
+                                       showShareButton ? View.GONE : View.VISIBLE);
         }
         
-        bindNotificationHeader(remoteView, categoryName);
+        bindHeader(remoteView, plan, content);
         
         // Hide icon for older Android versions
-        if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.M) {
+        if (Build.VERSION.SDK_INT <= Build.VERSION_CODES.M && plan.has(NotificationLayouts.VIEW_ICON)) {
             remoteView.setViewVisibility(io.lokal.notifications.R.id.icon, View.GONE);
         }
     }
     
-    private static void setupHeadsUpView(RemoteViews remoteView, String title, String body,
-                                       Bitmap bitmap, Bitmap blurrBitmap, String categoryName,
-                                       int notificationVersion, UserPreferences userPreferences) {
-        remoteView.setTextViewText(io.lokal.notifications.R.id.title, parseHtmlTags(title));
-        remoteView.setTextViewText(io.lokal.notifications.R.id.body, parseHtmlTags(body));
-        
-        // Dynamic text sizing for version 5
-        if (notificationVersion == 5) {
-            remoteView.setTextViewTextSize(io.lokal.notifications.R.id.title, TypedValue.COMPLEX_UNIT_SP, 16);
+    private static void bindText(RemoteViews remoteView, NotificationLayouts.BindingPlan plan, PreparedNotificationContent content) {
+        if (plan.has(NotificationLayouts.VIEW_TITLE)) {
+            remoteView.setTextViewText(io.lokal.notifications.R.id.title, content.title);
+            if (plan.titleTextSizeSp > 0) {
+                remoteView.setTextViewTextSize(io.lokal.notifications.R.id.title, TypedValue.COMPLEX_UNIT_SP, plan.titleTextSizeSp);
+            }
         }
-        
-        if (bitmap != null) {
-            remoteView.setImageViewBitmap(io.lokal.notifications.R.id.icon, bitmap);
+        if (plan.has(NotificationLayouts.VIEW_BODY)) {
+            remoteView.setTextViewText(io.lokal.notifications.R.id.body, content.body);
         }
-        if (blurrBitmap != null) {
+    }
+    
+    private static void bindBlur(RemoteViews remoteView, NotificationLayouts.BindingPlan plan, Bitmap blurrBitmap) {
+        if (blurrBitmap != null && plan.has(NotificationLayouts.VIEW_BLUR)) {
             remoteView.setImageViewBitmap(io.lokal.notifications.R.id.blurr_view, blurrBitmap);
         }
-        
-        bindNotificationHeader(remoteView, categoryName);
+    }
+    
+    private static void bindHeader(RemoteViews remoteView, NotificationLayouts.BindingPlan plan, PreparedNotificationContent content) {
+        if (plan.has(NotificationLayouts.VIEW_HEADER)) {
+            bindNotificationHeader(remoteView, content.categoryName, content.timeStamp);
+        }
     }
     
     // Notification grouping logic matching native implementation
-    private static void handleNotificationGrouping(Context context, NotificationCompat.Builder builder, 
-                                                  int id, boolean isGroupingNeeded, int groupID) {
-        SharedPreferences prefs = context.getSharedPreferences("NotificationPrefs", Context.MODE_PRIVATE);
-        boolean isGroupingActive = prefs.getBoolean(IS_NOTIFICATION_GROUPING_ACTIVE, true);
-        
-        if (!isGroupingActive) {
+    private static void handleNotificationGrouping(Context context, NotificationCompat.Builder builder, int id, boolean isGroupingNeeded,
+                                                  int groupID, UserPreferences userPreferences) {
+        if (!userPreferences.isNotificationGroupingActive()) {
             builder.setGroup(String.valueOf(id));
         } else if (isGroupingNeeded && groupID != 0) {
             builder.setGroup(String.valueOf(groupID));
+            builder.setDeleteIntent(NotificationDismissReceiver.createChildDeleteIntent(context, id));
         }
     }
     
@@ -528,14 +350,12 @@ public class NotificationUtil {
     private static void handleHighPriorityNotification(Context context, NotificationCompat.Builder builder,
                                                       int id, String title, String body, String channel,
                                                       PendingIntent pendingIntent, RemoteViews collapsed,
-                                                      RemoteViews headsUp, RemoteViews expanded, int importance) {
-        SharedPreferences prefs = context.getSharedPreferences("NotificationPrefs", Context.MODE_PRIVATE);
-        boolean keepAtTop = prefs.getBoolean(NOTIFICATION_KEEP_AT_TOP, false);
-        
+                                                      RemoteViews headsUp, RemoteViews expanded, int importance,
+                                                      UserPreferences userPreferences) {
         if (!isXiaomiDevice()) {
-            if (keepAtTop) {
+            if (userPreferences.isKeepNotificationAtTop()) {
                 createCustomHighPriorityNotification(context, id, title, body, channel, 
-                                                   pendingIntent, collapsed, headsUp, expanded);
+                                                   pendingIntent, collapsed, headsUp, expanded, userPreferences);
             } else {
                 builder.setPriority(NotificationCompat.PRIORITY_MAX);
                 postNotification(id, builder.build(), context);
@@ -550,7 +370,8 @@ public class NotificationUtil {
     
     private static void createCustomHighPriorityNotification(Context context, int id, String title, String body,
                                                            String channel, PendingIntent pendingIntent,
-                                                           RemoteViews collapsed, RemoteViews headsUp, RemoteViews expanded) {
+                                                           RemoteViews collapsed, RemoteViews headsUp, RemoteViews expanded,
+                                                           UserPreferences userPreferences) {
         Person otherPerson = new Person.Builder()
                 .setBot(false)
                 .setName("Lokal")
@@ -563,17 +384,17 @@ public class NotificationUtil {
                 .setImportant(true)
                 .build();
 
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, context.getPackageName() + "_" + channel);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannelRegistry.channelId(context, channel));
         builder.setContentIntent(pendingIntent)
                 .setSmallIcon(getNotificationIcon(context))
                 .setColor(getNotificationColor(context))
-                .setContentTitle(parseHtmlTags(title))
-                .setContentText(parseHtmlTags(body))
+                .setContentTitle(title)
+                .setContentText(body)
                 .setCategory(NotificationCompat.CATEGORY_MESSAGE)
                 .addPerson(self)
                 .setStyle(new NotificationCompat.MessagingStyle(self)
                         .setConversationTitle("Lokal")
-                        .addMessage(parseHtmlTags(body), System.currentTimeMillis(), otherPerson))
+                        .addMessage(body, System.currentTimeMillis(), otherPerson))
                 .setOnlyAlertOnce(true)
                 .setAutoCancel(true)
                 .setCustomContentView(collapsed)
@@ -584,7 +405,7 @@ public class NotificationUtil {
                 .setGroupSummary(false);
 
         // Handle silent push
-        if (isSilentPush(context)) {
+        if (userPreferences.isSilentPush()) {
             builder.setSound(null);
             builder.setWhen(System.currentTimeMillis());
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -600,47 +421,9 @@ public class NotificationUtil {
     
     // Group summary notification logic matching native implementation
     private static void handleGroupSummaryNotification(Context context, int groupID, String channel,
-                                                      String categoryName, String title, String body, int id) {
-        SharedPreferences prefs = context.getSharedPreferences("NotificationPrefs", Context.MODE_PRIVATE);
-        String existingIds = prefs.getString(MATRIMONY_GROUPED_NOTIF_ID + groupID, "");
-        
-        if (!TextUtils.isEmpty(existingIds)) {
-            NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                StatusBarNotification[] activeNotifications = notificationManager.getActiveNotifications();
-                boolean isPresent = false;
-                for (StatusBarNotification activeNotification : activeNotifications) {
-                    if (activeNotification.getId() == groupID) {
-                        isPresent = true;
-                        break;
-                    }
-                }
-                if (!isPresent) {
-                    existingIds = "";
-                }
-            }
-        }
-        
-        existingIds = TextUtils.isEmpty(existingIds) ? String.valueOf(id) : (existingIds + "," + id);
-        prefs.edit().putString(MATRIMONY_GROUPED_NOTIF_ID + groupID, existingIds).apply();
-        
-        // Create group summary notification
-        Intent intent = new Intent(context, NotificationClickReceiver.class);
-        intent.putExtra("notification_id_extra", groupID);
-        PendingIntent groupPendingIntent = PendingIntent.getActivity(context, groupID, intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0));
-
-        NotificationCompat.Builder summaryBuilder = new NotificationCompat.Builder(context, context.getPackageName() + "_" + channel)
-                .setContentIntent(groupPendingIntent)
-                .setSmallIcon(getNotificationIcon(context))
-                .setColor(getNotificationColor(context))
-                .setPriority(NotificationCompat.PRIORITY_LOW)
-                .setGroup(String.valueOf(groupID))
-                .setContentTitle(title)
-                .setGroupSummary(true)
-                .setContentText(body);
-
-        NotificationManagerCompat.from(context).notify(groupID, summaryBuilder.build());
+                                                      String categoryName, String title, int id) {
+        GroupSummaryEngine.getInstance().onChildPosted(context, groupID, id, title,
+            NotificationChannelRegistry.channelId(context, channel), categoryName);
     }
     
     // Utility methods
@@ -648,11 +431,6 @@ public class NotificationUtil {
         return Build.MANUFACTURER.equalsIgnoreCase("xiaomi");
     }
     
-    private static boolean isSilentPush(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences("NotificationPrefs", Context.MODE_PRIVATE);
-        return prefs.getBoolean("is_silent_push", false);
-    }
-    
     private static int getPriorityForImportance(int importance) {
         switch (importance) {
             case NotificationManagerCompat.IMPORTANCE_HIGH:
@@ -669,11 +447,11 @@ public class NotificationUtil {
     }
     
     private static void postNotification(int notificationId, android.app.Notification notification, Context context) {
-        // Notification limiting logic would go here
-        NotificationManagerCompat.from(context).notify(notificationId, notification);
+        // The limit is enforced by the post queue after the batch this post is drained in
+        NotificationPostQueue.getInstance().enqueueLimited(context, notificationId, notification);
     }
     
-    private static int getNotificationColor(Context context) {
+    static int getNotificationColor(Context context) {
         try {
             return context.getResources().getColor(android.R.color.holo_blue_light);
         } catch (Exception e) {
@@ -681,17 +459,6 @@ public class NotificationUtil {
         }
     }
     
-    private static String parseHtmlTags(String text) {
-        if (text == null) return "";
-        // Enhanced HTML parsing - can be further enhanced to match LokalTextUtils
-        return text.replaceAll("<[^>]*>", "").trim();
-    }
-    
-    private static String getCurrentTime() {
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        return sdf.format(new Date());
-    }
-    
     // ========== CONSOLIDATED UTILITY METHODS ==========
     // These methods are now centralized in NotificationUtil to avoid duplication
     
@@ -703,30 +470,6 @@ public class NotificationUtil {
         }
     }
     
-    /**
-     * Create notification channels - consolidated from NotificationManagerModule
-     */
-    public static void createNotificationChannels(Context context) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-            
-            // Create channels matching exact Android implementation
-            createChannel(notificationManager, "Recommendation", "Recommendations", NotificationManager.IMPORTANCE_HIGH);
-            createChannel(notificationManager, "Cricket", "Cricket Updates", NotificationManager.IMPORTANCE_LOW);
-            createChannel(notificationManager, "Comments", "Comments", NotificationManager.IMPORTANCE_LOW);
-            createChannel(notificationManager, "Downloads", "Downloads", NotificationManager.IMPORTANCE_LOW);
-            createChannel(notificationManager, "Uploads", "Uploads", NotificationManager.IMPORTANCE_LOW);
-        }
-    }
-    
-    private static void createChannel(NotificationManager notificationManager, String channelId, String channelName, int importance) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            android.app.NotificationChannel channel = new android.app.NotificationChannel(channelId, channelName, importance);
-            channel.setDescription("Channel for " + channelName);
-            notificationManager.createNotificationChannel(channel);
-        }
-    }
-    
     /**
      * Create basic notification - consolidated from NotificationManagerModule
      */
@@ -736,7 +479,7 @@ public class NotificationUtil {
                                              boolean isGroupingNeeded, int groupID, String notifType, 
                                              boolean isPersonalized) {
         
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channel)
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannelRegistry.channelId(context, channel))
             .setContentTitle(title)
             .setContentText(body)
             .setSmallIcon(getNotificationIcon(context))
@@ -761,10 +504,11 @@ public class NotificationUtil {
         // Handle grouping if needed (exact Android logic)
         if (isGroupingNeeded && groupID != 0) {
             builder.setGroup(String.valueOf(groupID));
+            builder.setDeleteIntent(NotificationDismissReceiver.createChildDeleteIntent(context, id));
             
             // Create group summary if needed
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-                createBasicGroupSummaryNotification(context, groupID, channel, categoryName);
+                createBasicGroupSummaryNotification(context, groupID, id, title, channel, categoryName);
             }
         }
 
@@ -773,36 +517,29 @@ public class NotificationUtil {
             builder.setCategory(NotificationCompat.CATEGORY_MESSAGE);
         }
 
-        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        notificationManager.notify(id, builder.build());
+        NotificationPostQueue.getInstance().enqueue(context, id, builder.build());
     }
     
     /**
-     * Create basic group summary notification - consolidated from NotificationManagerModule
+     * Add a basic notification to its group summary - consolidated from NotificationManagerModule
      */
-    public static void createBasicGroupSummaryNotification(Context context, int groupID, String channel, String categoryName) {
-        NotificationCompat.Builder summaryBuilder = new NotificationCompat.Builder(context, channel)
-            .setContentTitle(categoryName)
-            .setContentText("Multiple notifications")
-            .setSmallIcon(getNotificationIcon(context))
-            .setGroup(String.valueOf(groupID))
-            .setGroupSummary(true)
-            .setAutoCancel(true);
-
-        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        notificationManager.notify(groupID + 10000, summaryBuilder.build());
+    public static void createBasicGroupSummaryNotification(Context context, int groupID, int id, String title,
+                                                           String channel, String categoryName) {
+        GroupSummaryEngine.getInstance().onChildPosted(context, groupID, id, title,
+            NotificationChannelRegistry.channelId(context, channel), categoryName);
     }
     
     /**
      * Create UserPreferences object from React Native config - consolidated from NotificationManagerModule
      */
-    public static UserPreferences createUserPreferencesFromConfig(ReadableMap config) {
-        // Extract user preferences from config with defaults
-        String selectedLanguage = config.hasKey("selectedLanguage") ? config.getString("selectedLanguage") : "en";
-        String preferredLocale = config.hasKey("preferredLocale") ? config.getString("preferredLocale") : "none";
-        boolean isNotificationGroupingActive = config.hasKey("isNotificationGroupingActive") ? config.getBoolean("isNotificationGroupingActive") : true;
-        boolean keepNotificationAtTop = config.hasKey("keepNotificationAtTop") ? config.getBoolean("keepNotificationAtTop") : false;
-        boolean isSilentPush = config.hasKey("isSilentPush") ? config.getBoolean("isSilentPush") : false;
+    public static UserPreferences createUserPreferencesFromConfig(Context context, ReadableMap config) {
+        // Settings missing from the config come from the stored preferences snapshot
+        NotificationPreferences stored = NotificationPreferences.get(context);
+        String selectedLanguage = config.hasKey("selectedLanguage") ? config.getString("selectedLanguage") : stored.selectedLanguage;
+        String preferredLocale = config.hasKey("preferredLocale") ? config.getString("preferredLocale") : stored.preferredLocale;
+        boolean isNotificationGroupingActive = config.hasKey("isNotificationGroupingActive") ? config.getBoolean("isNotificationGroupingActive") : stored.groupingActive;
+        boolean keepNotificationAtTop = config.hasKey("keepNotificationAtTop") ? config.getBoolean("keepNotificationAtTop") : stored.keepAtTop;
+        boolean isSilentPush = config.hasKey("isSilentPush") ? config.getBoolean("isSilentPush") : stored.silentPush;
 
         return new UserPreferences(selectedLanguage, preferredLocale, isNotificationGroupingActive, keepNotificationAtTop, isSilentPush);
     }
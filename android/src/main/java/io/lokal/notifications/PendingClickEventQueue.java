@@ -0,0 +1,263 @@
+package io.lokal.notifications;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notification clicks that arrived while React Native could not receive them, typically a
+ * cold start from the notification itself. Each click rewrites a small binary file through
+ * AtomicFile, so it survives the process being killed before JS is up, and the oldest clicks
+ * are dropped once the queue is full. The queue is drained in one batch when JS registers
+ * its click callback, from then on clicks are emitted to JS directly.
+ */
+public final class PendingClickEventQueue {
+
+    private static final String TAG = "PendingClickEventQueue";
+
+    private static final String FILE_NAME = "notification_click_events.bin";
+    private static final int MAGIC = 0x4C4E4345;
+    private static final int VERSION = 1;
+
+    static final int MAX_EVENTS = 50;
+
+    private static PendingClickEventQueue instance;
+
+    private final AtomicFile file;
+    // Complete records in the file, -1 until first read
+    private int count = -1;
+    // Whether JS has drained the queue and listens for live clicks
+    private boolean consumerReady;
+
+    /**
+     * One click, with the fields of NotificationClickData
+     */
+    public static class ClickEvent {
+        public final int notificationId;
+        public final String action;
+        public final String uri;
+        public final String categoryId;
+        public final String categoryName;
+        public final String tag;
+        public final String channel;
+        public final int importance;
+        public final boolean isPersonalized;
+        public final int groupId;
+        public final long timestamp;
+
+        public ClickEvent(int notificationId, String action, String uri, String categoryId, String categoryName,
+                          String tag, String channel, int importance, boolean isPersonalized, int groupId,
+                          long timestamp) {
+            this.notificationId = notificationId;
+            this.action = action != null ? action : "";
+            this.uri = uri != null ? uri : "";
+            this.categoryId = categoryId != null ? categoryId : "";
+            this.categoryName = categoryName != null ? categoryName : "";
+            this.tag = tag != null ? tag : "";
+            this.channel = channel != null ? channel : "";
+            this.importance = importance;
+            this.isPersonalized = isPersonalized;
+            this.groupId = groupId;
+            this.timestamp = timestamp;
+        }
+
+        public WritableMap toWritableMap() {
+            WritableMap data = Arguments.createMap();
+            data.putInt("notificationId", notificationId);
+            data.putString("action", action);
+            data.putString("uri", uri);
+            data.putString("categoryId", categoryId);
+            data.putString("categoryName", categoryName);
+            data.putString("tag", tag);
+            data.putString("channel", channel);
+            data.putInt("importance", importance);
+            data.putBoolean("isPersonalized", isPersonalized);
+            data.putInt("groupId", groupId);
+
+            WritableMap extras = Arguments.createMap();
+            extras.putString("source", "notification_click");
+            extras.putDouble("timestamp", timestamp);
+            data.putMap("extras", extras);
+            return data;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(notificationId);
+            out.writeUTF(action);
+            out.writeUTF(uri);
+            out.writeUTF(categoryId);
+            out.writeUTF(categoryName);
+            out.writeUTF(tag);
+            out.writeUTF(channel);
+            out.writeInt(importance);
+            out.writeBoolean(isPersonalized);
+            out.writeInt(groupId);
+            out.writeLong(timestamp);
+        }
+
+        static ClickEvent read(DataInputStream in) throws IOException {
+            return new ClickEvent(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                in.readUTF(), in.readUTF(), in.readInt(), in.readBoolean(), in.readInt(), in.readLong());
+        }
+    }
+
+    public static synchronized PendingClickEventQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new PendingClickEventQueue(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PendingClickEventQueue(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    /**
+     * Append a click, dropping the oldest one when the queue is full. The whole file is
+     * rewritten so a backup AtomicFile left behind can never replace the new record.
+     */
+    public synchronized void append(ClickEvent event) {
+        ensureLoaded();
+        List<ClickEvent> events = count == 0 ? new ArrayList<ClickEvent>() : readAll();
+        events.add(event);
+        while (events.size() > MAX_EVENTS) {
+            events.remove(0);
+        }
+        writeAll(events);
+    }
+
+    /**
+     * Queue a click unless JS is listening for live clicks
+     *
+     * @return false when the caller should emit the click to JS instead
+     */
+    public synchronized boolean appendUnlessConsumerReady(ClickEvent event) {
+        if (consumerReady) {
+            return false;
+        }
+        append(event);
+        return true;
+    }
+
+    /**
+     * Forget the JS consumer, called when a new React instance starts without listeners
+     */
+    public synchronized void resetConsumer() {
+        consumerReady = false;
+    }
+
+    /**
+     * Remove and return every queued click, oldest first. The caller becomes the consumer,
+     * clicks arriving afterwards are no longer queued.
+     */
+    public synchronized List<ClickEvent> drainForConsumer() {
+        consumerReady = true;
+        return drain();
+    }
+
+    /**
+     * Remove and return every queued click, oldest first
+     */
+    public synchronized List<ClickEvent> drain() {
+        ensureLoaded();
+        if (count == 0) {
+            return new ArrayList<>();
+        }
+        List<ClickEvent> events = readAll();
+        file.delete();
+        count = 0;
+        return events;
+    }
+
+    /**
+     * Drain the queue into an array of NotificationClickData maps for the JS consumer
+     */
+    public WritableArray drainToConsumer() {
+        WritableArray array = Arguments.createArray();
+        for (ClickEvent event : drainForConsumer()) {
+            array.pushMap(event.toWritableMap());
+        }
+        return array;
+    }
+
+    private void ensureLoaded() {
+        if (count >= 0) {
+            return;
+        }
+        List<ClickEvent> events = readAll();
+        if (count < 0) {
+            // A record was cut short by the process dying mid-append, keep the complete ones
+            writeAll(events);
+        }
+    }
+
+    /**
+     * Read every complete record. Leaves count at -1 when the file has a partial record.
+     */
+    private List<ClickEvent> readAll() {
+        List<ClickEvent> events = new ArrayList<>();
+        byte[] bytes;
+        try {
+            bytes = file.readFully();
+        } catch (FileNotFoundException e) {
+            count = 0;
+            return events;
+        } catch (IOException e) {
+            android.util.Log.e(TAG, "Failed to read queued notification clicks", e);
+            count = -1;
+            return events;
+        }
+
+        ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+        DataInputStream in = new DataInputStream(buffer);
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                count = -1;
+                return events;
+            }
+            while (buffer.available() > 0) {
+                events.add(ClickEvent.read(in));
+            }
+            count = events.size();
+        } catch (IOException e) {
+            // An append by an older version was interrupted, or the header is missing
+            count = -1;
+        }
+        return events;
+    }
+
+    private void writeAll(List<ClickEvent> events) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (ClickEvent event : events) {
+                event.write(out);
+            }
+            out.flush();
+            file.finishWrite(stream);
+            count = events.size();
+        } catch (IOException e) {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+            android.util.Log.e(TAG, "Failed to write queued notification clicks", e);
+            file.delete();
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.lokal.notifications;
+
+/**
+ * Everything the collapsed, expanded and heads-up views of one notification bind,
+ * computed once before any RemoteViews is built
+ */
+public final class PreparedNotificationContent {
+    // Title and body with markup stripped, title already concatenated for versions 4-6
+    public final String title;
+    public final String body;
+    public final String categoryName;
+    // Header time, shared so all views show the same minute
+    public final String timeStamp;
+    // Tamil and Malayalam titles need an extra line
+    public final boolean isTamilOrMalayalam;
+    public final NotificationImageSizer.SizedImages images;
+
+    PreparedNotificationContent(String title, String body, String categoryName, String timeStamp,
+                                boolean isTamilOrMalayalam, NotificationImageSizer.SizedImages images) {
+        this.title = title;
+        this.body = body;
+        this.categoryName = categoryName;
+        this.timeStamp = timeStamp;
+        this.isTamilOrMalayalam = isTamilOrMalayalam;
+        this.images = images;
+    }
+
+    public boolean hasImage() {
+        return images.collapsedIcon != null || images.blur != null;
+    }
+}
@@ -0,0 +1,287 @@
+package io.lokal.notifications;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistent store of scheduled local notifications, one row per id.
+ * Replaces the single JSON array under "scheduled_notifications" which had to be
+ * re-parsed and rewritten on every insert and remove.
+ */
+public class ScheduledNotificationStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "ScheduledNotificationStore";
+
+    private static final String DATABASE_NAME = "lokal_scheduled_notifications.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE = "scheduled_notifications";
+    private static final String COLUMN_ID = "id";
+    private static final String COLUMN_TITLE = "title";
+    private static final String COLUMN_BODY = "body";
+    private static final String COLUMN_SCHEDULED_TIME = "scheduled_time";
+    private static final String COLUMN_DATA = "data";
+    private static final String COLUMN_TOLERANCE = "tolerance_ms";
+
+    private static final String[] ALL_COLUMNS = new String[]{
+        COLUMN_ID, COLUMN_TITLE, COLUMN_BODY, COLUMN_SCHEDULED_TIME, COLUMN_DATA, COLUMN_TOLERANCE};
+
+    // Legacy SharedPreferences storage, migrated once
+    private static final String LEGACY_PREFS_NAME = "LocalNotifications";
+    private static final String LEGACY_KEY = "scheduled_notifications";
+    private static final String LEGACY_UNPARSED_KEY = "scheduled_notifications_unparsed";
+
+    private static ScheduledNotificationStore instance;
+
+    public static class ScheduledNotification {
+        public final int id;
+        public final String title;
+        public final String body;
+        public final long scheduledTime;
+        // JSON object of the extra data, or null
+        public final String data;
+        // How late the notification may be delivered, 0 for an exact alarm
+        public final long toleranceMs;
+
+        public ScheduledNotification(int id, String title, String body, long scheduledTime, String data) {
+            this(id, title, body, scheduledTime, data, 0);
+        }
+
+        public ScheduledNotification(int id, String title, String body, long scheduledTime, String data, long toleranceMs) {
+            this.id = id;
+            this.title = title;
+            this.body = body;
+            this.scheduledTime = scheduledTime;
+            this.data = data;
+            this.toleranceMs = toleranceMs;
+        }
+    }
+
+    public static synchronized ScheduledNotificationStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new ScheduledNotificationStore(context.getApplicationContext());
+            instance.migrateFromPreferences(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ScheduledNotificationStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+            + COLUMN_ID + " INTEGER PRIMARY KEY, "
+            + COLUMN_TITLE + " TEXT, "
+            + COLUMN_BODY + " TEXT, "
+            + COLUMN_SCHEDULED_TIME + " INTEGER NOT NULL, "
+            + COLUMN_DATA + " TEXT, "
+            + COLUMN_TOLERANCE + " INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX idx_" + TABLE + "_time ON " + TABLE + " (" + COLUMN_SCHEDULED_TIME + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN " + COLUMN_TOLERANCE + " INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+
+    /**
+     * Insert or replace the entry for this id
+     */
+    public void put(ScheduledNotification notification) {
+        getWritableDatabase().insertWithOnConflict(TABLE, null, toContentValues(notification),
+            SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    public void remove(int id) {
+        getWritableDatabase().delete(TABLE, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * Remove several entries in one transaction
+     */
+    public void removeAll(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int id : ids) {
+                db.delete(TABLE, COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void clear() {
+        getWritableDatabase().delete(TABLE, null, null);
+    }
+
+    /**
+     * Entry for this id, or null if none is stored
+     */
+    public ScheduledNotification get(int id) {
+        Cursor cursor = getReadableDatabase().query(TABLE,
+            ALL_COLUMNS,
+            COLUMN_ID + " = ?", new String[]{String.valueOf(id)}, null, null, null);
+        try {
+            return cursor.moveToFirst() ? fromCursor(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * All entries ordered by scheduled time
+     */
+    public List<ScheduledNotification> getAll() {
+        List<ScheduledNotification> notifications = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE,
+            ALL_COLUMNS,
+            null, null, null, null, COLUMN_SCHEDULED_TIME + " ASC");
+        try {
+            while (cursor.moveToNext()) {
+                notifications.add(fromCursor(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return notifications;
+    }
+
+    /**
+     * Entries scheduled at or before the given time, ordered by scheduled time
+     */
+    public List<ScheduledNotification> getDue(long time) {
+        List<ScheduledNotification> notifications = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE, ALL_COLUMNS,
+            COLUMN_SCHEDULED_TIME + " <= ?", new String[]{String.valueOf(time)},
+            null, null, COLUMN_SCHEDULED_TIME + " ASC");
+        try {
+            while (cursor.moveToNext()) {
+                notifications.add(fromCursor(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return notifications;
+    }
+
+    /**
+     * Window the next wakeup has to fall in: the earliest scheduled time and the earliest
+     * time any entry may be delivered by. Null when nothing is scheduled.
+     */
+    public long[] getNextWakeupWindow() {
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT MIN(" + COLUMN_SCHEDULED_TIME + "), MIN("
+            + COLUMN_SCHEDULED_TIME + " + " + COLUMN_TOLERANCE + ") FROM " + TABLE, null);
+        try {
+            if (!cursor.moveToFirst() || cursor.isNull(0)) {
+                return null;
+            }
+            return new long[]{cursor.getLong(0), cursor.getLong(1)};
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public List<Integer> getIds() {
+        List<Integer> ids = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE, new String[]{COLUMN_ID},
+            null, null, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+
+    private static ScheduledNotification fromCursor(Cursor cursor) {
+        return new ScheduledNotification(
+            cursor.getInt(0),
+            cursor.getString(1),
+            cursor.getString(2),
+            cursor.getLong(3),
+            cursor.isNull(4) ? null : cursor.getString(4),
+            cursor.getLong(5));
+    }
+
+    private static ContentValues toContentValues(ScheduledNotification notification) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_ID, notification.id);
+        values.put(COLUMN_TITLE, notification.title);
+        values.put(COLUMN_BODY, notification.body);
+        values.put(COLUMN_SCHEDULED_TIME, notification.scheduledTime);
+        values.put(COLUMN_DATA, notification.data);
+        values.put(COLUMN_TOLERANCE, notification.toleranceMs);
+        return values;
+    }
+
+    /**
+     * Move entries from the legacy JSON preference into the table in one transaction,
+     * then drop the preference so this only ever runs once.
+     */
+    private void migrateFromPreferences(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        if (!prefs.contains(LEGACY_KEY)) {
+            return;
+        }
+
+        String legacyJson = prefs.getString(LEGACY_KEY, "[]");
+        JSONArray jsonArray;
+        try {
+            jsonArray = new JSONArray(legacyJson);
+        } catch (JSONException e) {
+            // Retrying would fail the same way on every start, set the value aside instead
+            android.util.Log.e(TAG, "Legacy scheduled notifications are malformed, setting them aside", e);
+            prefs.edit().putString(LEGACY_UNPARSED_KEY, legacyJson).remove(LEGACY_KEY).apply();
+            return;
+        }
+
+        SQLiteDatabase db = getWritableDatabase();
+        boolean migrated = false;
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < jsonArray.length(); i++) {
+                JSONObject notifObj = jsonArray.optJSONObject(i);
+                if (notifObj == null) {
+                    continue;
+                }
+                JSONObject dataObj = notifObj.optJSONObject("data");
+                ScheduledNotification notification = new ScheduledNotification(
+                    notifObj.optInt("id", 0),
+                    notifObj.optString("title", ""),
+                    notifObj.optString("body", ""),
+                    notifObj.optLong("scheduledTime", 0),
+                    dataObj != null ? dataObj.toString() : null);
+                db.insertWithOnConflict(TABLE, null, toContentValues(notification), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+            migrated = true;
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Failed to migrate scheduled notifications", e);
+        } finally {
+            db.endTransaction();
+        }
+        if (migrated) {
+            prefs.edit().remove(LEGACY_KEY).apply();
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package io.lokal.notifications;
+
+import android.app.Notification;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.widget.RemoteViews;
+import androidx.core.app.NotificationCompat;
+import com.facebook.react.bridge.ReadableMap;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.FutureTarget;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live cricket score notifications. The last bound state of each match is kept, so an
+ * update only carries the fields that changed. Updates that change nothing are not posted,
+ * and updates arriving faster than the configured rate are merged into one deferred post.
+ *
+ * A notification update replaces its RemoteViews as a whole, so the views are rebuilt from
+ * the merged state on each post. Only fields that are set produce an action, and team icons
+ * are decoded and scaled once when their handle changes rather than on every ball.
+ */
+public class ScoreNotificationUpdater {
+
+    private static final String TAG = "ScoreNotificationUpdater";
+    private static final String CHANNEL_ID = NotificationChannelRegistry.CRICKET;
+
+    public static final long DEFAULT_MIN_INTERVAL_MS = 1000;
+
+    // Fields of CricketNotificationData in CricketTypes.ts
+    private static final String[] TEXT_FIELDS = {
+        "matchState", "matchStatus", "venue",
+        "team1Name", "team1ShortName", "team1Score", "team1Wickets", "team1Overs", "team1IconHandle", "team1IconUrl",
+        "team2Name", "team2ShortName", "team2Score", "team2Wickets", "team2Overs", "team2IconHandle", "team2IconUrl"
+    };
+
+    // Match state is dropped once this many matches are tracked, or once a match goes quiet
+    private static final int MAX_MATCHES = 8;
+    private static final long MATCH_STATE_TTL_MS = 6 * 60 * 60 * 1000L;
+    private static final long ICON_TIMEOUT_MS = 8000;
+
+    private static ScoreNotificationUpdater instance;
+
+    private final Handler handler;
+    // Icon downloads block, so they stay off the thread running deferred posts
+    private final ExecutorService iconExecutor = Executors.newSingleThreadExecutor();
+    // Least recently updated first
+    private final LinkedHashMap<Integer, MatchState> matches = new LinkedHashMap<>(16, 0.75f, true);
+    private long minIntervalMs = DEFAULT_MIN_INTERVAL_MS;
+
+    /**
+     * Outcome of one update call
+     */
+    public static class Result {
+        public final int changedFields;
+        public final boolean posted;
+        public final boolean deferred;
+
+        Result(int changedFields, boolean posted, boolean deferred) {
+            this.changedFields = changedFields;
+            this.posted = posted;
+            this.deferred = deferred;
+        }
+    }
+
+    private static class MatchState {
+        final Map<String, String> fields = new HashMap<>();
+        Bitmap team1Icon;
+        Bitmap team2Icon;
+        long lastPostTime;
+        long lastUpdateTime;
+        Runnable pendingPost;
+    }
+
+    public static synchronized ScoreNotificationUpdater getInstance() {
+        if (instance == null) {
+            instance = new ScoreNotificationUpdater();
+        }
+        return instance;
+    }
+
+    private ScoreNotificationUpdater() {
+        HandlerThread thread = new HandlerThread(TAG);
+        thread.start();
+        this.handler = new Handler(thread.getLooper());
+    }
+
+    public synchronized void setMinInterval(long intervalMs) {
+        minIntervalMs = Math.max(0, intervalMs);
+    }
+
+    /**
+     * Merge a diff into the match state and post it, now or once the throttle interval has passed
+     */
+    public synchronized Result update(Context context, int id, ReadableMap diff) {
+        final Context appContext = context.getApplicationContext();
+        MatchState state = matches.get(id);
+        if (state == null) {
+            evictStaleMatches();
+            state = new MatchState();
+            matches.put(id, state);
+        }
+        state.lastUpdateTime = SystemClock.elapsedRealtime();
+
+        int changedFields = 0;
+        for (String field : TEXT_FIELDS) {
+            if (!diff.hasKey(field)) {
+                continue;
+            }
+            String value = readString(diff, field);
+            String previous = state.fields.get(field);
+            if (value == null ? previous == null : value.equals(previous)) {
+                continue;
+            }
+            state.fields.put(field, value);
+            changedFields++;
+
+            if (field.equals("team1IconHandle")) {
+                state.team1Icon = decodeIcon(appContext, value);
+            } else if (field.equals("team2IconHandle")) {
+                state.team2Icon = decodeIcon(appContext, value);
+            } else if (field.equals("team1IconUrl") || field.equals("team2IconUrl")) {
+                loadIcon(appContext, id, state, field, value);
+            }
+        }
+
+        if (changedFields == 0) {
+            return new Result(0, false, state.pendingPost != null);
+        }
+        return schedulePost(appContext, id, state, changedFields);
+    }
+
+    /**
+     * Post the match now, or once the throttle interval has passed
+     */
+    private Result schedulePost(Context appContext, int id, MatchState state, int changedFields) {
+        if (state.pendingPost != null) {
+            // The deferred post will pick up the merged state
+            return new Result(changedFields, false, true);
+        }
+
+        long wait = state.lastPostTime + minIntervalMs - SystemClock.elapsedRealtime();
+        if (state.lastPostTime == 0 || wait <= 0) {
+            post(appContext, id, state);
+            return new Result(changedFields, true, false);
+        }
+
+        final MatchState deferredState = state;
+        state.pendingPost = () -> {
+            synchronized (ScoreNotificationUpdater.this) {
+                deferredState.pendingPost = null;
+                if (matches.get(id) == deferredState) {
+                    post(appContext, id, deferredState);
+                }
+            }
+        };
+        handler.postDelayed(state.pendingPost, wait);
+        return new Result(changedFields, false, true);
+    }
+
+    /**
+     * Fetch a team icon by URL on the icon thread. A handle set for the same team wins,
+     * and a URL replaced before its fetch completes is ignored.
+     */
+    private void loadIcon(Context appContext, int id, MatchState state, String field, String url) {
+        final boolean team1 = field.equals("team1IconUrl");
+        if (url == null || url.isEmpty()) {
+            return;
+        }
+        iconExecutor.execute(() -> {
+            Bitmap icon = fetchIcon(appContext, url);
+            if (icon == null) {
+                return;
+            }
+            synchronized (ScoreNotificationUpdater.this) {
+                if (matches.get(id) != state || !url.equals(state.fields.get(field))
+                        || state.fields.get(team1 ? "team1IconHandle" : "team2IconHandle") != null) {
+                    return;
+                }
+                if (team1) {
+                    state.team1Icon = icon;
+                } else {
+                    state.team2Icon = icon;
+                }
+                schedulePost(appContext, id, state, 1);
+            }
+        });
+    }
+
+    private static Bitmap fetchIcon(Context context, String url) {
+        int size = context.getResources().getDimensionPixelSize(R.dimen.notification_score_team_icon_size);
+        FutureTarget<Bitmap> target = Glide.with(context).asBitmap().load(url).submit(size, size);
+        try {
+            Bitmap bitmap = target.get(ICON_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            // Copy out, Glide reuses its bitmap once the target is cleared
+            return NotificationImageSizer.scaleToFit(bitmap.copy(bitmap.getConfig(), false), size, size);
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "Failed to load team icon " + url, e);
+            return null;
+        } finally {
+            Glide.with(context).clear(target);
+        }
+    }
+
+    // Matches that stopped updating, and the least recently updated ones above the cap
+    private void evictStaleMatches() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<Map.Entry<Integer, MatchState>> iterator = matches.entrySet().iterator();
+        while (iterator.hasNext()) {
+            MatchState state = iterator.next().getValue();
+            if (matches.size() >= MAX_MATCHES || now - state.lastUpdateTime > MATCH_STATE_TTL_MS) {
+                cancelPending(state);
+                iterator.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void cancelPending(MatchState state) {
+        if (state.pendingPost != null) {
+            handler.removeCallbacks(state.pendingPost);
+            state.pendingPost = null;
+        }
+    }
+
+    /**
+     * Drop the state of a match, e.g. when its notification is cancelled
+     */
+    public synchronized void forget(int id) {
+        MatchState state = matches.remove(id);
+        if (state != null) {
+            cancelPending(state);
+        }
+    }
+
+    private void post(Context context, int id, MatchState state) {
+        Map<String, String> fields = state.fields;
+        String packageName = context.getPackageName();
+        boolean preview = "PREVIEW".equals(fields.get("matchState"));
+
+        RemoteViews collapsedView;
+        if (preview) {
+            collapsedView = new RemoteViews(packageName, R.layout.item_view_notification_match_status);
+            setText(collapsedView, R.id.match_status, fields.get("matchStatus"));
+        } else {
+            collapsedView = new RemoteViews(packageName, R.layout.item_view_notification_score_card_mini);
+            setText(collapsedView, R.id.team_1_title, firstNonEmpty(fields.get("team1ShortName"), fields.get("team1Name")));
+            setText(collapsedView, R.id.team_2_title, firstNonEmpty(fields.get("team2ShortName"), fields.get("team2Name")));
+            setText(collapsedView, R.id.team_1_subtitle1, formatMiniScore(fields, "team1"));
+            setText(collapsedView, R.id.team_2_subtitle1, formatMiniScore(fields, "team2"));
+            setIcons(collapsedView, state);
+        }
+
+        RemoteViews expandedView = new RemoteViews(packageName, R.layout.item_view_notification_score_card);
+        setText(expandedView, R.id.team_1_title, firstNonEmpty(fields.get("team1Name"), fields.get("team1ShortName")));
+        setText(expandedView, R.id.team_2_title, firstNonEmpty(fields.get("team2Name"), fields.get("team2ShortName")));
+        setText(expandedView, R.id.team_1_subtitle1, formatScore(fields, "team1"));
+        setText(expandedView, R.id.team_2_subtitle1, formatScore(fields, "team2"));
+        setText(expandedView, R.id.team_1_subtitle2, formatOvers(fields.get("team1Overs")));
+        setText(expandedView, R.id.team_2_subtitle2, formatOvers(fields.get("team2Overs")));
+        setIcons(expandedView, state);
+
+        String title = firstNonEmpty(fields.get("team1ShortName"), fields.get("team1Name"))
+            + " vs " + firstNonEmpty(fields.get("team2ShortName"), fields.get("team2Name"));
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationChannelRegistry.channelId(context, CHANNEL_ID))
+            .setSmallIcon(NotificationUtil.getNotificationIcon(context))
+            .setContentTitle(title)
+            .setContentText(fields.get("matchStatus"))
+            .setSubText(fields.get("venue"))
+            .setCustomContentView(collapsedView)
+            .setCustomBigContentView(expandedView)
+            .setStyle(new NotificationCompat.DecoratedCustomViewStyle())
+            .setOnlyAlertOnce(true)
+            .setOngoing("INPROGRESS".equals(fields.get("matchState")))
+            .setPriority(NotificationCompat.PRIORITY_LOW);
+
+        Notification notification = builder.build();
+        NotificationPostQueue.getInstance().enqueue(context, id, notification);
+        state.lastPostTime = SystemClock.elapsedRealtime();
+    }
+
+    // Scores may arrive as numbers, they are bound as text either way
+    private static String readString(ReadableMap diff, String field) {
+        switch (diff.getType(field)) {
+            case String:
+                return diff.getString(field);
+            case Number:
+                double number = diff.getDouble(field);
+                return number == Math.rint(number) ? String.valueOf((long) number) : String.valueOf(number);
+            default:
+                return null;
+        }
+    }
+
+    private static void setText(RemoteViews views, int viewId, String value) {
+        if (value != null && !value.isEmpty()) {
+            views.setTextViewText(viewId, value);
+        }
+    }
+
+    private static void setIcons(RemoteViews views, MatchState state) {
+        if (state.team1Icon != null) {
+            views.setImageViewBitmap(R.id.ic_team_1, state.team1Icon);
+        }
+        if (state.team2Icon != null) {
+            views.setImageViewBitmap(R.id.ic_team_2, state.team2Icon);
+        }
+    }
+
+    private static Bitmap decodeIcon(Context context, String handle) {
+        if (handle == null) {
+            return null;
+        }
+        Bitmap bitmap = NotificationImageStore.decode(context, handle);
+        int size = context.getResources().getDimensionPixelSize(R.dimen.notification_score_team_icon_size);
+        return NotificationImageSizer.scaleToFit(bitmap, size, size);
+    }
+
+    // "120-3"
+    private static String formatScore(Map<String, String> fields, String team) {
+        String score = fields.get(team + "Score");
+        String wickets = fields.get(team + "Wickets");
+        if (score == null || score.isEmpty()) {
+            return null;
+        }
+        return wickets == null || wickets.isEmpty() ? score : score + "-" + wickets;
+    }
+
+    // "120-3 (15.2)"
+    private static String formatMiniScore(Map<String, String> fields, String team) {
+        String score = formatScore(fields, team);
+        String overs = fields.get(team + "Overs");
+        if (score == null || overs == null || overs.isEmpty()) {
+            return score;
+        }
+        return score + " (" + overs + ")";
+    }
+
+    // "15.2 ov"
+    private static String formatOvers(String overs) {
+        return overs == null || overs.isEmpty() ? null : overs + " ov";
+    }
+
+    private static String firstNonEmpty(String first, String second) {
+        if (first != null && !first.isEmpty()) {
+            return first;
+        }
+        return second != null ? second : "";
+    }
+}
@@ -0,0 +1,48 @@
+package io.lokal.notifications;
+
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+/**
+ * Time of HtmlText.strip against the former replaceAll("<[^>]*>", "") over Indic titles.
+ * Each notification used to run the regex about six times, so the per-notification cost
+ * of both is reported as well.
+ *
+ * Skipped unless run with -Dbenchmark=true
+ */
+public class HtmlTextBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20000;
+    private static final int MEASURED_ROUNDS = 100000;
+    private static final int REGEX_CALLS_PER_NOTIFICATION = 6;
+
+    @Test
+    public void compareWithRegex() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+
+        String[] titles = HtmlTextTest.CORPUS;
+        int sink = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            String title = titles[i % titles.length];
+            sink += HtmlText.strip(title).length() + HtmlTextTest.regexStrip(title).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += HtmlText.strip(titles[i % titles.length]).length();
+        }
+        long stripNanos = (System.nanoTime() - start) / MEASURED_ROUNDS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            sink += HtmlTextTest.regexStrip(titles[i % titles.length]).length();
+        }
+        long regexNanos = (System.nanoTime() - start) / MEASURED_ROUNDS;
+
+        System.out.println("HtmlText.strip: " + stripNanos + "ns per title, once per notification");
+        System.out.println("replaceAll: " + regexNanos + "ns per title, "
+            + regexNanos * REGEX_CALLS_PER_NOTIFICATION + "ns per notification");
+        System.out.println("(checksum " + sink + ")");
+    }
+}
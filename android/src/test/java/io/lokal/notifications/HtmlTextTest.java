@@ -0,0 +1,115 @@
+package io.lokal.notifications;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class HtmlTextTest {
+
+    // Titles as they arrive in pushes, without entities so the old regex is a valid reference
+    static final String[] CORPUS = {
+        "<b>హైదరాబాద్‌లో భారీ వర్షం</b>, ట్రాఫిక్ జామ్",
+        "<p>சென்னையில் <i>கனமழை</i> எச்சரிக்கை</p>",
+        "मुंबई में <strong>तेज़ बारिश</strong>, स्कूल बंद",
+        "  <span style=\"color:red\">തിരുവനന്തപുരം</span> വാർത്തകൾ  ",
+        "ಬೆಂಗಳೂರು <a href=\"https://lokal.app/x?a=1\">ಸುದ್ದಿ</a>",
+        "বাংলা <br/>সংবাদ<br>",
+        "No markup at all",
+        "a < b <i>c</i>",
+        "unclosed <b tag",
+        "<<nested>> angle",
+        "",
+        "   ",
+        "<></>",
+        "ગુજરાતી <em>સમાચાર</em> ",
+        "ਪੰਜਾਬ <u>ਖ਼ਬਰਾਂ</u>",
+        "ଓଡ଼ିଆ <sup>1</sup> ଖବର"
+    };
+
+    @Test
+    public void matchesRegexOnCorpus() {
+        for (String title : CORPUS) {
+            assertEquals(title, regexStrip(title), HtmlText.strip(title));
+        }
+    }
+
+    @Test
+    public void nullBecomesEmpty() {
+        assertEquals("", HtmlText.strip(null));
+    }
+
+    @Test
+    public void plainTextIsOnlyTrimmed() {
+        String text = "తెలుగు వార్తలు";
+        assertSame(text, HtmlText.strip(text));
+        assertEquals("తెలుగు", HtmlText.strip("  తెలుగు \n"));
+    }
+
+    @Test
+    public void stripsTags() {
+        assertEquals("bold and italic", HtmlText.strip("<b>bold</b> and <i class=\"x\">italic</i>"));
+        assertEquals("line", HtmlText.strip("<br/>line<br>"));
+    }
+
+    @Test
+    public void unclosedTagIsKept() {
+        assertEquals("price < 100", HtmlText.strip("price < 100"));
+        assertEquals("a <b", HtmlText.strip("<i>a</i> <b"));
+    }
+
+    @Test
+    public void decodesNamedEntities() {
+        assertEquals("Tom & Jerry", HtmlText.strip("Tom &amp; Jerry"));
+        assertEquals("<b> is bold", HtmlText.strip("&lt;b&gt; is bold"));
+        assertEquals("\"quoted\" 'single'", HtmlText.strip("&quot;quoted&quot; &apos;single&apos;"));
+        assertEquals("a b", HtmlText.strip("a&nbsp;b"));
+    }
+
+    @Test
+    public void decodedEntitiesAreNotTreatedAsTags() {
+        assertEquals("<i>literal</i>", HtmlText.strip("&lt;i&gt;literal&lt;/i&gt;"));
+    }
+
+    @Test
+    public void unknownOrUnterminatedEntitiesAreKept() {
+        assertEquals("&copy; 2024", HtmlText.strip("&copy; 2024"));
+        assertEquals("R&D team", HtmlText.strip("R&D team"));
+        assertEquals("a & b", HtmlText.strip("a & b"));
+        assertEquals("&amp", HtmlText.strip("&amp"));
+        assertEquals("&verylongentityname;", HtmlText.strip("&verylongentityname;"));
+    }
+
+    @Test
+    public void decodesNumericEntities() {
+        assertEquals("A", HtmlText.strip("&#65;"));
+        assertEquals("A", HtmlText.strip("&#x41;"));
+        assertEquals("A", HtmlText.strip("&#X41;"));
+        assertEquals("అ", HtmlText.strip("&#3077;"));
+        assertEquals("😀", HtmlText.strip("&#x1F600;"));
+    }
+
+    @Test
+    public void invalidNumericEntitiesAreKept() {
+        assertEquals("&#;", HtmlText.strip("&#;"));
+        assertEquals("&#x;", HtmlText.strip("&#x;"));
+        assertEquals("&#12a;", HtmlText.strip("&#12a;"));
+        assertEquals("&#xZZ;", HtmlText.strip("&#xZZ;"));
+        // Above the last code point
+        assertEquals("&#x110000;", HtmlText.strip("&#x110000;"));
+        assertEquals("&#99999999;", HtmlText.strip("&#99999999;"));
+        // Not characters
+        assertEquals("&#0;", HtmlText.strip("&#0;"));
+        assertEquals("&#xD800;", HtmlText.strip("&#xD800;"));
+    }
+
+    @Test
+    public void stripsAndDecodesTogether() {
+        assertEquals("హైదరాబాద్ & విజయవాడ", HtmlText.strip("<b>హైదరాబాద్</b> &amp; <i>విజయవాడ</i>&nbsp;"));
+    }
+
+    // The replaceAll the single-pass stripper replaced
+    static String regexStrip(String text) {
+        return text.replaceAll("<[^>]*>", "").trim();
+    }
+}
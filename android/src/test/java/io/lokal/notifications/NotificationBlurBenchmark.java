@@ -0,0 +1,127 @@
+package io.lokal.notifications;
+
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+/**
+ * Time and quality of the notification blur against the workload of BlurTransformation(20, 3),
+ * which blurs the image at a third of its size with a 20px radius. Glide's transformation
+ * needs an Android runtime, so its workload is reproduced with the same box blur at its
+ * working size; the blurred result downscaled to the notification's working size serves as
+ * the quality reference.
+ *
+ * Skipped unless run with -Dbenchmark=true
+ */
+public class NotificationBlurBenchmark {
+
+    private static final int SOURCE_WIDTH = 1080;
+    private static final int SOURCE_HEIGHT = 608;
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 100;
+
+    @Test
+    public void compareWithBlurTransformationWorkload() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+
+        int[] source = scene(SOURCE_WIDTH, SOURCE_HEIGHT);
+
+        int[] working = NotificationBlur.workingSize(SOURCE_WIDTH, SOURCE_HEIGHT,
+            NotificationBlur.DEFAULT_RADIUS, NotificationBlur.DEFAULT_SAMPLING);
+        int[] small = downscale(source, SOURCE_WIDTH, SOURCE_HEIGHT, working[0], working[1]);
+
+        int largeWidth = SOURCE_WIDTH / NotificationBlur.DEFAULT_SAMPLING;
+        int largeHeight = SOURCE_HEIGHT / NotificationBlur.DEFAULT_SAMPLING;
+        int[] large = downscale(source, SOURCE_WIDTH, SOURCE_HEIGHT, largeWidth, largeHeight);
+
+        long smallNanos = time(small, working[0], working[1], working[2]);
+        long largeNanos = time(large, largeWidth, largeHeight, NotificationBlur.DEFAULT_RADIUS);
+
+        int[] smallResult = small.clone();
+        NotificationBlur.boxBlur(smallResult, new int[smallResult.length], working[0], working[1], working[2]);
+        int[] largeResult = large.clone();
+        NotificationBlur.boxBlur(largeResult, new int[largeResult.length], largeWidth, largeHeight,
+            NotificationBlur.DEFAULT_RADIUS);
+        int[] reference = downscale(largeResult, largeWidth, largeHeight, working[0], working[1]);
+
+        System.out.println("NotificationBlur " + working[0] + "x" + working[1] + " r" + working[2]
+            + ": " + smallNanos / 1000 + "us per blur");
+        System.out.println("BlurTransformation workload " + largeWidth + "x" + largeHeight + " r"
+            + NotificationBlur.DEFAULT_RADIUS + ": " + largeNanos / 1000 + "us per blur");
+        System.out.println("Mean channel difference: " + meanChannelDifference(smallResult, reference));
+    }
+
+    private static long time(int[] pixels, int width, int height, int radius) {
+        int[] buffer = new int[pixels.length];
+        int[] scratch = new int[pixels.length];
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            System.arraycopy(pixels, 0, buffer, 0, pixels.length);
+            NotificationBlur.boxBlur(buffer, scratch, width, height, radius);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            System.arraycopy(pixels, 0, buffer, 0, pixels.length);
+            NotificationBlur.boxBlur(buffer, scratch, width, height, radius);
+        }
+        return (System.nanoTime() - start) / MEASURED_RUNS;
+    }
+
+    // A photo-like scene: smooth gradients with some noise
+    private static int[] scene(int width, int height) {
+        int[] noise = NotificationBlurTest.randomPixels(width * height, 7);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int jitter = (noise[y * width + x] & 0x1F) - 16;
+                int r = clamp(x * 255 / width + jitter);
+                int g = clamp(y * 255 / height + jitter);
+                int b = clamp(128 + (int) (100 * Math.sin(x / 40.0) * Math.cos(y / 30.0)) + jitter);
+                pixels[y * width + x] = 0xFF000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return pixels;
+    }
+
+    // Area-average downscale, close to what createScaledBitmap with filtering produces
+    private static int[] downscale(int[] pixels, int width, int height, int targetWidth, int targetHeight) {
+        int[] out = new int[targetWidth * targetHeight];
+        for (int ty = 0; ty < targetHeight; ty++) {
+            int y0 = ty * height / targetHeight;
+            int y1 = Math.max(y0 + 1, (ty + 1) * height / targetHeight);
+            for (int tx = 0; tx < targetWidth; tx++) {
+                int x0 = tx * width / targetWidth;
+                int x1 = Math.max(x0 + 1, (tx + 1) * width / targetWidth);
+                long a = 0;
+                long r = 0;
+                long g = 0;
+                long b = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        int pixel = pixels[y * width + x];
+                        a += pixel >>> 24;
+                        r += (pixel >> 16) & 0xFF;
+                        g += (pixel >> 8) & 0xFF;
+                        b += pixel & 0xFF;
+                    }
+                }
+                int count = (y1 - y0) * (x1 - x0);
+                out[ty * targetWidth + tx] = (int) ((a / count) << 24 | (r / count) << 16 | (g / count) << 8 | (b / count));
+            }
+        }
+        return out;
+    }
+
+    private static double meanChannelDifference(int[] first, int[] second) {
+        long total = 0;
+        for (int i = 0; i < first.length; i++) {
+            for (int shift = 0; shift <= 16; shift += 8) {
+                total += Math.abs(((first[i] >> shift) & 0xFF) - ((second[i] >> shift) & 0xFF));
+            }
+        }
+        return (double) total / (first.length * 3);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
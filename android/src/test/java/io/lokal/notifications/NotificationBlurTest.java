@@ -0,0 +1,135 @@
+package io.lokal.notifications;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class NotificationBlurTest {
+
+    @Test
+    public void matchesReferenceBlur() {
+        assertMatchesReference(96, 54, 7);
+    }
+
+    @Test
+    public void matchesReferenceWhenSizeIsNotAMultipleOfRadius() {
+        assertMatchesReference(13, 7, 4);
+        assertMatchesReference(31, 17, 6);
+    }
+
+    @Test
+    public void matchesReferenceWhenRadiusExceedsImage() {
+        assertMatchesReference(5, 3, 20);
+    }
+
+    @Test
+    public void singlePixelIsUnchanged() {
+        int[] pixels = {0x80FF4020};
+        NotificationBlur.boxBlur(pixels, new int[1], 1, 1, 5);
+        assertEquals(0x80FF4020, pixels[0]);
+    }
+
+    @Test
+    public void singleRowAndColumnMatchReference() {
+        assertMatchesReference(40, 1, 3);
+        assertMatchesReference(1, 40, 3);
+    }
+
+    @Test
+    public void uniformImageKeepsItsColour() {
+        int[] pixels = new int[9 * 5];
+        java.util.Arrays.fill(pixels, 0xFF336699);
+        NotificationBlur.boxBlur(pixels, new int[pixels.length], 9, 5, 3);
+        for (int pixel : pixels) {
+            assertEquals(0xFF336699, pixel);
+        }
+    }
+
+    @Test
+    public void zeroRadiusLeavesPixelsAlone() {
+        int[] pixels = randomPixels(6 * 4, 1);
+        int[] expected = pixels.clone();
+        NotificationBlur.boxBlur(pixels, new int[pixels.length], 6, 4, 0);
+        assertArrayEquals(expected, pixels);
+    }
+
+    @Test
+    public void workingSizeIsCappedForLargeImages() {
+        int[] size = NotificationBlur.workingSize(1080, 608, NotificationBlur.DEFAULT_RADIUS, NotificationBlur.DEFAULT_SAMPLING);
+        assertEquals(96, size[0]);
+        assertEquals(54, size[1]);
+        // 20px at a third of 1080 wide scales to roughly 5px at 96 wide
+        assertEquals(5, size[2]);
+    }
+
+    @Test
+    public void workingSizeOfSmallImagesOnlyAppliesSampling() {
+        int[] size = NotificationBlur.workingSize(60, 45, NotificationBlur.DEFAULT_RADIUS, NotificationBlur.DEFAULT_SAMPLING);
+        assertEquals(20, size[0]);
+        assertEquals(15, size[1]);
+        assertEquals(NotificationBlur.DEFAULT_RADIUS, size[2]);
+    }
+
+    @Test
+    public void workingSizeNeverDropsBelowOnePixel() {
+        int[] size = NotificationBlur.workingSize(1, 2000, 1, 3);
+        assertTrue(size[0] >= 1);
+        assertTrue(size[1] <= 96);
+        assertTrue(size[2] >= 1);
+    }
+
+    private static void assertMatchesReference(int width, int height, int radius) {
+        int[] pixels = randomPixels(width * height, width * 31 + height);
+        int[] expected = referenceBlur(pixels, width, height, radius);
+        NotificationBlur.boxBlur(pixels, new int[pixels.length], width, height, radius);
+        assertArrayEquals(expected, pixels);
+    }
+
+    static int[] randomPixels(int size, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[size];
+        for (int i = 0; i < size; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return pixels;
+    }
+
+    /**
+     * Direct-sum box blur with clamped edges: three passes, each horizontal then vertical
+     */
+    static int[] referenceBlur(int[] source, int width, int height, int radius) {
+        int[] pixels = source.clone();
+        for (int pass = 0; pass < 3; pass++) {
+            pixels = boxPass(pixels, width, height, radius, true);
+            pixels = boxPass(pixels, width, height, radius, false);
+        }
+        return pixels;
+    }
+
+    private static int[] boxPass(int[] in, int width, int height, int radius, boolean horizontal) {
+        int divisor = radius * 2 + 1;
+        int[] out = new int[in.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int a = 0;
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                for (int i = -radius; i <= radius; i++) {
+                    int sx = horizontal ? Math.min(Math.max(x + i, 0), width - 1) : x;
+                    int sy = horizontal ? y : Math.min(Math.max(y + i, 0), height - 1);
+                    int pixel = in[sy * width + sx];
+                    a += pixel >>> 24;
+                    r += (pixel >> 16) & 0xFF;
+                    g += (pixel >> 8) & 0xFF;
+                    b += pixel & 0xFF;
+                }
+                out[y * width + x] = ((a / divisor) << 24) | ((r / divisor) << 16) | ((g / divisor) << 8) | (b / divisor);
+            }
+        }
+        return out;
+    }
+}
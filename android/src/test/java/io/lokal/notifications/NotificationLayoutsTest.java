@@ -0,0 +1,146 @@
+package io.lokal.notifications;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Checks every binding plan against the layout file it points to, read from res/layout,
+ * so a plan never binds a view its layout doesn't have
+ */
+public class NotificationLayoutsTest {
+
+    private static final File LAYOUT_DIRECTORY = new File("src/main/res/layout");
+
+    // Plan views and the ids each one binds
+    private static final int[] VIEWS = {
+        NotificationLayouts.VIEW_TITLE,
+        NotificationLayouts.VIEW_BODY,
+        NotificationLayouts.VIEW_ICON,
+        NotificationLayouts.VIEW_THUMBNAIL,
+        NotificationLayouts.VIEW_BLUR,
+        NotificationLayouts.VIEW_HEADER,
+        NotificationLayouts.VIEW_SHARE,
+        NotificationLayouts.VIEW_FOOTER
+    };
+    private static final String[][] VIEW_IDS = {
+        {"title"},
+        {"body"},
+        {"icon"},
+        {"thumbnail"},
+        {"blurr_view"},
+        {"category_container", "category_name", "time_stamp"},
+        {"share_container", "share"},
+        {"notification_footer"}
+    };
+
+    // Past the last version, which falls back to the default set
+    private static final int MAX_VERSION = 8;
+
+    @Test
+    public void versionPlansOnlyBindViewsOfTheirLayout() throws Exception {
+        for (int version = 0; version <= MAX_VERSION; version++) {
+            NotificationLayouts.LayoutSet layouts = NotificationLayouts.forVersion(version);
+            assertBindsOnlyLayoutViews("v" + version + " collapsed", layouts.collapsed);
+            assertBindsOnlyLayoutViews("v" + version + " expanded", layouts.expanded);
+            assertBindsOnlyLayoutViews("v" + version + " heads-up", layouts.headsUp);
+
+            NotificationLayouts.BindingPlan withoutImage = NotificationLayouts.withoutImage(version);
+            if (withoutImage != null) {
+                assertBindsOnlyLayoutViews("v" + version + " without image", withoutImage);
+            }
+        }
+    }
+
+    @Test
+    public void otherPlansOnlyBindViewsOfTheirLayout() throws Exception {
+        assertBindsOnlyLayoutViews("quiz collapsed", NotificationLayouts.QUIZ.collapsed);
+        assertBindsOnlyLayoutViews("quiz expanded", NotificationLayouts.QUIZ.expanded);
+        assertBindsOnlyLayoutViews("sticky", NotificationLayouts.STICKY);
+        assertBindsOnlyLayoutViews("local without image", NotificationLayouts.WITHOUT_IMAGE_LOCAL);
+    }
+
+    @Test
+    public void version6RendersTheV7LayoutsWithItsLineCountRules() throws Exception {
+        NotificationLayouts.LayoutSet layouts = NotificationLayouts.forVersion(6);
+        assertEquals("notification_small_v7", layoutName(layouts.collapsed.layoutId));
+        assertEquals("notification_large_v7", layoutName(layouts.expanded.layoutId));
+        assertEquals("notification_small_v7", layoutName(layouts.headsUp.layoutId));
+        assertTrue(layouts.collapsed.adjustsLineCount);
+        assertTrue(layouts.expanded.adjustsLineCount);
+        assertFalse(layouts.headsUp.adjustsLineCount);
+        assertFalse(layouts.decorated);
+    }
+
+    @Test
+    public void version7AndUnknownVersionsUseTheDefaultSet() {
+        assertSame(NotificationLayouts.DEFAULT, NotificationLayouts.forVersion(0));
+        assertSame(NotificationLayouts.DEFAULT, NotificationLayouts.forVersion(7));
+        assertSame(NotificationLayouts.DEFAULT, NotificationLayouts.forVersion(-1));
+        assertTrue(NotificationLayouts.DEFAULT.decorated);
+    }
+
+    private static void assertBindsOnlyLayoutViews(String label, NotificationLayouts.BindingPlan plan) throws Exception {
+        String name = layoutName(plan.layoutId);
+        Set<String> ids = layoutIds(name);
+        for (int i = 0; i < VIEWS.length; i++) {
+            if (!plan.has(VIEWS[i])) {
+                continue;
+            }
+            for (String id : VIEW_IDS[i]) {
+                assertTrue(label + " binds " + id + " missing from " + name, ids.contains(id));
+            }
+        }
+    }
+
+    private static String layoutName(int layoutId) throws IllegalAccessException {
+        Map<Integer, String> names = new HashMap<>();
+        for (Field field : R.layout.class.getFields()) {
+            names.put(field.getInt(null), field.getName());
+        }
+        String name = names.get(layoutId);
+        assertNotNull(name);
+        return name;
+    }
+
+    // Ids declared by a layout, following its includes
+    private static Set<String> layoutIds(String name) throws Exception {
+        File file = new File(LAYOUT_DIRECTORY, name + ".xml");
+        Element root = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file).getDocumentElement();
+        Set<String> ids = new HashSet<>();
+        collectIds(root, ids);
+        return ids;
+    }
+
+    private static void collectIds(Element element, Set<String> ids) throws Exception {
+        String id = element.getAttribute("android:id");
+        if (id.startsWith("@+id/") || id.startsWith("@id/")) {
+            ids.add(id.substring(id.indexOf('/') + 1));
+        }
+        if ("include".equals(element.getTagName())) {
+            String layout = element.getAttribute("layout");
+            ids.addAll(layoutIds(layout.substring(layout.indexOf('/') + 1)));
+        }
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            if (child instanceof Element) {
+                collectIds((Element) child, ids);
+            }
+        }
+    }
+}
@@ -26,14 +26,17 @@ export class LocalNotificationManager {
   }
 
   /**
-   * Schedules a local notification
+   * Schedules a local notification.
+   * toleranceMs lets a non-critical reminder be delivered up to that much later
+   * through an inexact alarm.
    */
   public async scheduleNotification(
     id: number,
     title: string,
     body: string,
     scheduledTime: number,
-    data?: { [key: string]: any }
+    data?: { [key: string]: any },
+    toleranceMs?: number
   ): Promise<void> {
     try {
       if (Platform.OS === "android") {
@@ -43,6 +46,7 @@ export class LocalNotificationManager {
           body,
           scheduledTime,
           data: data || {},
+          toleranceMs: toleranceMs || 0,
         });
       }
 
@@ -100,6 +104,30 @@ export class LocalNotificationManager {
     }
   }
 
+  /**
+   * Uses a single wakeup alarm for all scheduled notifications instead of one
+   * alarm each. Everything due within windowMs of a wakeup is posted together.
+   */
+  public async setAlarmCoalescing(
+    enabled: boolean,
+    windowMs: number = 60000
+  ): Promise<void> {
+    try {
+      if (Platform.OS === "android") {
+        await LocalNotificationManagerModule.setAlarmCoalescing(
+          enabled,
+          windowMs
+        );
+      }
+    } catch (error) {
+      console.error(
+        "[LocalNotificationManager] Failed to set alarm coalescing:",
+        error
+      );
+      throw error;
+    }
+  }
+
   /**
    * Gets all scheduled local notifications
    */
@@ -125,14 +153,16 @@ export const scheduleLocalNotification = async (
   title: string,
   body: string,
   scheduledTime: number,
-  data?: { [key: string]: any }
+  data?: { [key: string]: any },
+  toleranceMs?: number
 ): Promise<void> => {
   await LocalNotificationManager.getInstance().scheduleNotification(
     id,
     title,
     body,
     scheduledTime,
-    data
+    data,
+    toleranceMs
   );
 };
 
@@ -147,3 +177,13 @@ export const cancelAllLocalNotifications = async (): Promise<void> => {
 export const getScheduledLocalNotifications = async (): Promise<any[]> => {
   return await LocalNotificationManager.getInstance().getScheduledNotifications();
 };
+
+export const setLocalNotificationAlarmCoalescing = async (
+  enabled: boolean,
+  windowMs?: number
+): Promise<void> => {
+  await LocalNotificationManager.getInstance().setAlarmCoalescing(
+    enabled,
+    windowMs
+  );
+};
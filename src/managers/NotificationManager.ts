@@ -8,11 +8,13 @@ import {
 import {
   NotificationEventCallbacks,
   NotificationCallbacks,
+  NotificationClickData,
 } from "../interfaces/NotificationCallbacks";
 import { NotificationLimiter } from "../utils/NotificationLimiter";
 import { NotificationRefresher } from "../utils/NotificationRefresher";
 import { NotificationReCreator } from "../utils/NotificationReCreator";
 import { NotificationUtil } from "../utils/NotificationUtil";
+import { CricketNotificationData } from "../types/CricketTypes";
 
 const { NotificationManagerModule } = NativeModules;
 
@@ -97,6 +99,29 @@ export class NotificationManager {
    */
   public setEventCallbacks(callbacks: NotificationEventCallbacks): void {
     this.eventCallbacks = callbacks;
+    if (callbacks.onNotificationClick) {
+      this.deliverPendingClicks();
+    }
+  }
+
+  /**
+   * Delivers clicks queued natively before a click callback was registered, e.g. the one
+   * that cold-started the app. Native emits onNotificationClick directly after this drain.
+   */
+  private async deliverPendingClicks(): Promise<void> {
+    try {
+      const events: NotificationClickData[] =
+        await NotificationManagerModule.drainPendingEvents();
+      events.forEach((data) => {
+        console.log("[NotificationManager] Pending notification click:", data);
+        this.eventCallbacks?.onNotificationClick?.(data);
+      });
+    } catch (error) {
+      console.error(
+        "[NotificationManager] Failed to deliver pending clicks:",
+        error
+      );
+    }
   }
 
   /**
@@ -270,6 +295,9 @@ export class NotificationManager {
     userPreferences: UserPreferences,
     options?: {
       imageUrl?: string;
+      imageHandle?: string;
+      blurImageHandle?: string;
+      imageTimeoutMs?: number;
       channel?: string;
       importance?: number;
       notificationVersion?: number;
@@ -284,6 +312,9 @@ export class NotificationManager {
 
     const {
       imageUrl,
+      imageHandle,
+      blurImageHandle,
+      imageTimeoutMs,
       channel = Constants.DEFAULT_CHANNEL,
       importance = Constants.IMPORTANCE_HIGH,
       notificationVersion = 1,
@@ -318,6 +349,9 @@ export class NotificationManager {
         importance,
         notificationVersion,
         imageUrl,
+        imageHandle,
+        blurImageHandle,
+        imageTimeoutMs,
         isGroupingNeeded,
         groupID,
         notifType,
@@ -716,6 +750,9 @@ export const createNotificationWithCustomLayout = async (
   userPreferences: UserPreferences,
   options?: {
     imageUrl?: string;
+    imageHandle?: string;
+    blurImageHandle?: string;
+    imageTimeoutMs?: number;
     channel?: string;
     importance?: number;
     notificationVersion?: number;
@@ -752,3 +789,173 @@ export const createNotificationWithCustomLayout = async (
 export const setAppLocale = async (languageCode: string): Promise<void> => {
   await NotificationManagerModule.setAppLocale(languageCode);
 };
+
+/**
+ * Image Cache Functions
+ */
+
+/**
+ * Get hit/miss counters of the native notification image cache
+ */
+export const getImageCacheStats = async (): Promise<{
+  hits: number;
+  softHits: number;
+  misses: number;
+  evictions: number;
+  entries: number;
+  sizeBytes: number;
+  maxSizeBytes: number;
+  coalescedLoads: number;
+  supersededLoads: number;
+  timedOutLoads: number;
+}> => {
+  return await NotificationManagerModule.getImageCacheStats();
+};
+
+/**
+ * Get how many bytes of bitmap data were saved by sizing notification images to their slots
+ */
+export const getImageSizingStats = async (): Promise<{
+  notificationsSized: number;
+  totalBytesSaved: number;
+  lastBytesSaved: number;
+}> => {
+  return await NotificationManagerModule.getImageSizingStats();
+};
+
+/**
+ * Batch Functions
+ */
+
+/**
+ * Create many custom layout notifications in a single native call
+ * Each config takes the same keys as createNotificationWithCustomLayout's native config
+ * Images load concurrently through the shared native loader, each notification is posted
+ * as soon as its image is ready; resolves once every config has a result
+ */
+export const createNotificationsBatch = async (
+  configs: Array<Record<string, unknown>>
+): Promise<Array<{ id: number; success: boolean; error?: string }>> => {
+  return await NotificationManagerModule.createNotificationsBatch(configs);
+};
+
+/**
+ * Get counters of the native rate-limited posting queue
+ */
+export const getPostQueueStats = async (): Promise<{
+  posted: number;
+  coalesced: number;
+  dropped: number;
+  delayed: number;
+  pending: number;
+}> => {
+  return await NotificationManagerModule.getPostQueueStats();
+};
+
+/**
+ * Get active notifications as parallel arrays instead of one map per notification
+ * Only the extras named in projection are read, each returned as its own array
+ */
+export const getActiveNotificationsCompact = async (
+  projection: string[] = []
+): Promise<{
+  ids: number[];
+  times: number[];
+  refreshIds: number[];
+  when: number[];
+  extras: { [key: string]: Array<string | number | boolean | null> };
+}> => {
+  return await NotificationManagerModule.getActiveNotificationsCompact(
+    projection
+  );
+};
+
+/**
+ * Cricket Score Functions
+ */
+
+/**
+ * Update a live score notification with only the fields that changed
+ * The last state of each match is kept natively; unchanged updates are skipped
+ * and updates faster than the configured interval are merged into one post
+ */
+export const updateScoreNotification = async (
+  id: number,
+  diff: Partial<CricketNotificationData> & {
+    team1IconHandle?: string;
+    team2IconHandle?: string;
+  }
+): Promise<{ changedFields: number; posted: boolean; deferred: boolean }> => {
+  return await NotificationManagerModule.updateScoreNotification(id, diff);
+};
+
+/**
+ * Set the minimum time between two posts of the same score notification
+ */
+export const setScoreUpdateInterval = async (
+  intervalMs: number
+): Promise<void> => {
+  await NotificationManagerModule.setScoreUpdateInterval(intervalMs);
+};
+
+/**
+ * Show header times in 24-hour ("14:05") or 12-hour ("2:05 PM") format
+ */
+export const setUse24HourTime = async (enabled: boolean): Promise<void> => {
+  await NotificationManagerModule.setUse24HourTime(enabled);
+};
+
+type BuildStageTiming = { averageMs: number; lastMs: number };
+
+/**
+ * Get the per-stage timing of native custom layout notification builds
+ */
+export const getBuildTimings = async (): Promise<{
+  builds: number;
+  text: BuildStageTiming;
+  images: BuildStageTiming;
+  bind: BuildStageTiming;
+  post: BuildStageTiming;
+}> => {
+  return await NotificationManagerModule.getBuildTimings();
+};
+
+/**
+ * Resize the native executor that builds and posts notifications
+ * Builds submitted while queueDepth builds are already waiting are rejected
+ */
+export const configureBuildExecutor = async (
+  poolSize: number,
+  queueDepth: number
+): Promise<void> => {
+  await NotificationManagerModule.configureBuildExecutor(poolSize, queueDepth);
+};
+
+/**
+ * Get queue-wait and build-time metrics of the native build executor
+ */
+export const getBuildExecutorStats = async (): Promise<{
+  poolSize: number;
+  queueDepth: number;
+  queued: number;
+  active: number;
+  submitted: number;
+  completed: number;
+  failed: number;
+  rejected: number;
+  averageQueueWaitMs: number;
+  maxQueueWaitMs: number;
+  averageBuildMs: number;
+  maxBuildMs: number;
+}> => {
+  return await NotificationManagerModule.getBuildExecutorStats();
+};
+
+/**
+ * Remove and return the notification clicks queued natively while JS was not ready
+ * setEventCallbacks already drains them into onNotificationClick; after a drain native
+ * emits later clicks as onNotificationClick instead of queueing them
+ */
+export const drainPendingEvents = async (): Promise<NotificationClickData[]> => {
+  return await NotificationManagerModule.drainPendingEvents();
+};
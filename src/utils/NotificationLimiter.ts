@@ -1,6 +1,4 @@
 import { NativeModules, Platform } from "react-native";
-import { Constants } from "../types/Constants";
-import { ActiveNotification } from "../types/NotificationTypes";
 import { NotificationLimitCallbacks } from "../interfaces/NotificationCallbacks";
 import {
   getRemoteConfigBoolean,
@@ -11,6 +9,12 @@ import { recordException } from "../managers/AnalyticsManager";
 
 const { NotificationLimiterModule } = NativeModules;
 
+interface LimitResult {
+  activeCount: number;
+  removedCount: number;
+  limit: number;
+}
+
 /**
  * NotificationLimiter - Exact port of Android NotificationLimiter.kt
  * Maintains notification order and limits based on timestamp
@@ -34,7 +38,9 @@ export class NotificationLimiter {
 
   /**
    * Limits notifications based on the exact same logic as Android
-   * Sorts by timestamp and removes oldest notifications when limit is exceeded
+   * Sorts by timestamp and removes oldest notifications when limit is exceeded.
+   * The sort and cancel run natively in a single call; the limit is also
+   * re-applied natively after every post.
    */
   public async limitNotifications(): Promise<void> {
     try {
@@ -43,85 +49,32 @@ export class NotificationLimiter {
         false
       );
 
-      if (
-        keepAtTop &&
-        typeof Platform.Version === "number" &&
-        Platform.Version >= Constants.VERSION_CODES_M
-      ) {
-        const activeNotifications = await this.getActiveNotifications();
+      const notificationLimit = await this.getRemoteConfigInt(
+        RemoteConfigConstants.NOTIFICATION_LIMIT,
+        0
+      );
+
+      if (Platform.OS !== "android") {
+        return;
+      }
 
-        let notificationLimit = await this.getRemoteConfigInt(
-          RemoteConfigConstants.NOTIFICATION_LIMIT,
-          0
-        );
+      const result: LimitResult = await NotificationLimiterModule.enforceLimit(
+        notificationLimit,
+        keepAtTop
+      );
+
+      if (!keepAtTop) {
+        return;
+      }
 
-        if (notificationLimit === 0) {
-          console.log(
-            "[NotificationLimiter] Not removing older notifications since limit is 0"
-          );
-          this.callbacks?.onLimitCheckCompleted(
-            activeNotifications.length,
-            notificationLimit
-          );
-          return;
-        }
-
-        if (notificationLimit > 1) {
-          notificationLimit -= 1;
-        }
-
-        const currentAppNotifications: ActiveNotification[] = [];
-        for (const notification of activeNotifications) {
-          if (notification.packageName === (await this.getPackageName())) {
-            currentAppNotifications.push(notification);
-          }
-        }
-
-        // Sort notifications by timestamp in descending order (newest first)
-        // This matches the exact logic from Android: sortedByDescending
-        const sortedNotifications = currentAppNotifications.sort((a, b) => {
-          const timeA =
-            a.notification.extras[Constants.NOTIFICATION_TIME_EXTRA] || 0;
-          const timeB =
-            b.notification.extras[Constants.NOTIFICATION_TIME_EXTRA] || 0;
-          return timeB - timeA; // Descending order
-        });
-
-        if (sortedNotifications.length <= notificationLimit) {
-          console.log(
-            "[NotificationLimiter] Not removing older notifications since active notifications are less than limit"
-          );
-          this.callbacks?.onLimitCheckCompleted(
-            sortedNotifications.length,
-            notificationLimit
-          );
-          return;
-        }
-
-        // Remove oldest notifications (keep newest ones)
-        // This matches Android logic: sortedNotifications.reversed().dropLast(notificationLimit)
-        const notificationsToRemove = sortedNotifications
-          .reverse() // Oldest first
-          .slice(0, sortedNotifications.length - notificationLimit); // Drop last N (keep newest N)
-
-        let removedCount = 0;
-        for (const notification of notificationsToRemove) {
-          const id =
-            notification.notification.extras[
-              Constants.NOTIFICATION_REFRESH_ID_EXTRA
-            ];
-          if (id) {
-            await this.cancelNotification(id);
-            removedCount++;
-          }
-        }
-
-        this.callbacks?.onNotificationsLimited(removedCount);
-        this.callbacks?.onLimitCheckCompleted(
-          sortedNotifications.length - removedCount,
-          notificationLimit
+      if (notificationLimit === 0) {
+        console.log(
+          "[NotificationLimiter] Not removing older notifications since limit is 0"
         );
+      } else if (result.removedCount > 0) {
+        this.callbacks?.onNotificationsLimited(result.removedCount);
       }
+      this.callbacks?.onLimitCheckCompleted(result.activeCount, result.limit);
     } catch (exception) {
       const error =
         exception instanceof Error ? exception : new Error(String(exception));
@@ -133,37 +86,6 @@ export class NotificationLimiter {
     }
   }
 
-  /**
-   * Gets active notifications from the system
-   * Uses native module to access Android NotificationManager.getActiveNotifications()
-   */
-  private async getActiveNotifications(): Promise<ActiveNotification[]> {
-    if (Platform.OS === "android") {
-      return await NotificationLimiterModule.getActiveNotifications();
-    }
-    return [];
-  }
-
-  /**
-   * Cancels a notification by ID
-   * Uses native module to call Android NotificationManager.cancel()
-   */
-  private async cancelNotification(notificationId: number): Promise<void> {
-    if (Platform.OS === "android") {
-      await NotificationLimiterModule.cancelNotification(notificationId);
-    }
-  }
-
-  /**
-   * Gets the current app's package name
-   */
-  private async getPackageName(): Promise<string> {
-    if (Platform.OS === "android") {
-      return await NotificationLimiterModule.getPackageName();
-    }
-    return "";
-  }
-
   /**
    * Gets remote config boolean value
    */
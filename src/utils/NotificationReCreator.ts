@@ -327,6 +327,39 @@ export class NotificationReCreator {
     }
     throw new Error("Blurred image loading not supported on this platform");
   }
+
+  /**
+   * Loads image into the native image store and returns an opaque handle
+   * The handle can be passed to notification builders as imageHandle, so the bitmap never crosses the bridge
+   */
+  public async loadImageAsHandle(imageUrl: string): Promise<ImageHandle> {
+    if (Platform.OS === "android") {
+      return await NotificationReCreatorModule.loadImageAsHandle(imageUrl);
+    }
+    throw new Error("Image loading not supported on this platform");
+  }
+
+  /**
+   * Loads blurred image into the native image store and returns an opaque handle
+   * Uses the same blur parameters as loadBlurredImageAsBase64 (BlurTransformation(20, 3))
+   */
+  public async loadBlurredImageAsHandle(imageUrl: string): Promise<ImageHandle> {
+    if (Platform.OS === "android") {
+      return await NotificationReCreatorModule.loadBlurredImageAsHandle(
+        imageUrl,
+        20,
+        3
+      );
+    }
+    throw new Error("Blurred image loading not supported on this platform");
+  }
+}
+
+export interface ImageHandle {
+  handle: string;
+  path: string;
+  width: number;
+  height: number;
 }
 
 // Static methods to match Android usage pattern
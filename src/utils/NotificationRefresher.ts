@@ -147,22 +147,9 @@ export class NotificationRefresher {
       const existingNotifications = [...sortedNotifications].reverse();
 
       if (await this.isXiaomiDevice()) {
-        // Xiaomi device logic - simple timestamp update
-        let refreshedCount = 0;
-        for (const notification of existingNotifications) {
-          await this.delay(NotificationRefresher.NOTIFY_DELAY);
-
-          // Update timestamp and re-post notification
-          notification.notification.when = Date.now();
-          const id =
-            notification.notification.extras[
-              Constants.NOTIFICATION_REFRESH_ID_EXTRA
-            ];
-          if (id) {
-            await this.notifyNotification(id, notification);
-            refreshedCount++;
-          }
-        }
+        // Xiaomi device logic - timestamp update and re-post of the original
+        // notifications, done natively in one call through the rate-limited queue
+        const refreshedCount = await this.refreshAll();
         this.callbacks?.onRefreshCompleted(refreshedCount);
       } else {
         // Non-Xiaomi device logic - recreate notifications from database
@@ -288,13 +275,11 @@ export class NotificationRefresher {
     return false;
   }
 
-  private async notifyNotification(
-    id: number,
-    notification: ActiveNotification
-  ): Promise<void> {
+  private async refreshAll(): Promise<number> {
     if (Platform.OS === "android") {
-      await NotificationRefresherModule.notifyNotification(id, notification);
+      return await NotificationRefresherModule.refreshAll();
     }
+    return 0;
   }
 
   private async cancelNotification(id: number): Promise<void> {